@@ -0,0 +1,141 @@
+package com.practiceroombot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed per-command overhead: resolving and parsing a command the way CommandListener does, handler
+ * lookup, the current time index, and time parsing both through the command tokenizer and through
+ * TimeIntegerizer, which reports malformed input with IllegalArgumentException and
+ * NumberFormatException. Every benchmark cycles through a corpus of realistic input, either all
+ * well-formed or all malformed, so the cost of rejecting abusive input is visible next to the normal path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandParsingBenchmark {
+
+    private static final String[] VALID_MESSAGES = {
+            "!reserve 1 thursday 8:30pm 1.5",
+            "!reserve 2 mon 9pm 2",
+            "!cancel 1 Friday 7pm",
+            "!display",
+            "!display text thu",
+            "!whohas 1 saturday 10:30am",
+            "!record sunday 6p 2",
+            "!phelp",
+    };
+
+    private static final String[] MALFORMED_MESSAGES = {
+            "!reserve 3 monday 8pm 2",
+            "!reserve 1 funday 8pm 2",
+            "!cancel 1 monday 8:15pm",
+            "!reserve 1 monday 13pm 1",
+            "!reserve one monday 8pm 1",
+            "!reserve 1 monday 8pm -1",
+            "!cancel",
+            "!reserv 1 mon 8pm 1",
+    };
+
+    // Day and time pairs as users type them
+    private static final String[][] VALID_TIMES = {
+            {"thursday", "8:30pm"}, {"Monday", "9pm"}, {"friday", "7 PM"}, {"saturday", "10:30am"},
+            {"sunday", "6p"}, {"tuesday", "20:00"}, {"wednesday", "12am"}, {"monday", "11:30pm"},
+    };
+
+    private static final String[][] MALFORMED_TIMES = {
+            {"thursday", "8:15pm"}, {"monday", "noon"}, {"funday", "8pm"}, {"friday", "13:45"},
+            {"saturday", "tonight"}, {"sunday", "7:10am"}, {"someday", "9"}, {"tuesday", "half past"},
+    };
+
+    @Param({"valid", "malformed"})
+    public String input;
+
+    private final CommandHandlerFactory factory = new CommandHandlerFactory();
+    private String[] messages;
+    private String[] names;
+    private String[][] times;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void selectCorpus() {
+        boolean valid = input.equals("valid");
+        messages = valid ? VALID_MESSAGES : MALFORMED_MESSAGES;
+        times = valid ? VALID_TIMES : MALFORMED_TIMES;
+        names = new String[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            int nameEnd = CommandTokenizer.tokenEnd(messages[i], 1);
+            names[i] = messages[i].substring(1, nameEnd);
+
+            // A valid message that fails to parse would silently measure the error path
+            CommandSpec spec = factory.getSpec(messages[i], 1, nameEnd);
+            if (valid && (spec == null || spec.parseArguments(messages[i], nameEnd).getError() != null)) {
+                throw new IllegalStateException("Valid benchmark message does not parse: " + messages[i]);
+            }
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % messages.length;
+        return next;
+    }
+
+    @Benchmark
+    public Object resolveAndParse() {
+        // CommandListener's work between receiving a message and queueing its handler
+        String message = messages[nextIndex()];
+        int nameEnd = CommandTokenizer.tokenEnd(message, 1);
+        CommandSpec spec = factory.getSpec(message, 1, nameEnd);
+        return spec == null ? null : spec.parseArguments(message, nameEnd);
+    }
+
+    @Benchmark
+    public ICommandHandler getHandler() {
+        return factory.getHandler(names[nextIndex()]);
+    }
+
+    @Benchmark
+    public int integerizeTime() {
+        String[] time = times[nextIndex()];
+        try {
+            return TimeIntegerizer.integerizeTime(time[1], time[0]);
+        } catch (IllegalArgumentException e) {
+            // Also catches NumberFormatException
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public boolean isValidTimeFormat() {
+        return TimeIntegerizer.isValidTimeFormat(times[nextIndex()][1]);
+    }
+
+    @Benchmark
+    public int tokenizerParseDayAndTime() {
+        // The exception-free parsing the command grammar uses for the same input
+        String[] time = times[nextIndex()];
+        int day = CommandTokenizer.parseDay(time[0], 0, time[0].length());
+        int index = CommandTokenizer.parseTime(time[1], 0, time[1].length());
+        return day < 0 || index < 0 ? -1 : TimeIntegerizer.integerizeIndices(day, index);
+    }
+
+    @Benchmark
+    public int getCurrentTimeIndex() {
+        return RealTimeTracker.getCurrentTimeIndex();
+    }
+}
@@ -0,0 +1,158 @@
+package com.practiceroombot;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costs of rendering the schedule image and encoding it as PNG, on a sparse week, a dense week with
+ * raids and a week with a recording session every evening. The render cache is bypassed. Plain
+ * renders find the base layer current, so they measure copying it and drawing the user's overlay;
+ * the AfterChange benchmarks first reserve and cancel a block, as ScheduleBenchmark does, so the
+ * changed slots are repainted, and the AfterFullRedraw benchmark discards the base layer so it is
+ * drawn from every slot. Runs headless, like the bot on a server.
+ * The encoding benchmarks report the encoded size in bytes as a secondary result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    // A member with reservations in every fixture, so the highlight overlay has work to do
+    private static final String USER = "member1";
+
+    @Param({"sparse", "dense", "recordings"})
+    public String fixture;
+
+    private BufferedImage image;
+    private BufferedImage pooled;
+    private BufferedImage eveningImage;
+    private PalettePngEncoder encoder;
+    private ScheduleView eveningView;
+
+    /**
+     * Size of the last encoded image, reported beside the encoding time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void render() {
+        ScheduleFixtures.fill(fixture);
+        image = ScheduleVisualizer.generateScheduleImage(USER);
+        pooled = ScheduleVisualizer.acquireImage();
+        encoder = new PalettePngEncoder(6);
+        eveningView = ScheduleView.FULL.withOption("thu").withOption("6pm-11pm");
+        eveningImage = ScheduleVisualizer.renderView(eveningView, USER);
+    }
+
+    @TearDown(Level.Trial)
+    public void releasePooledImage() {
+        ScheduleVisualizer.releaseImage(pooled);
+    }
+
+    @Benchmark
+    public BufferedImage generateScheduleImage() {
+        return ScheduleVisualizer.generateScheduleImage(USER);
+    }
+
+    @Benchmark
+    public BufferedImage renderIntoPooledImage() {
+        ScheduleVisualizer.renderInto(pooled, USER);
+        return pooled;
+    }
+
+    @Benchmark
+    public BufferedImage generateScheduleImageAfterChange() {
+        changeSchedule();
+        return ScheduleVisualizer.generateScheduleImage(USER);
+    }
+
+    @Benchmark
+    public BufferedImage renderIntoPooledImageAfterChange() {
+        changeSchedule();
+        ScheduleVisualizer.renderInto(pooled, USER);
+        return pooled;
+    }
+
+    @Benchmark
+    public BufferedImage renderIntoPooledImageAfterFullRedraw() {
+        ScheduleVisualizer.discardBaseLayer();
+        ScheduleVisualizer.renderInto(pooled, USER);
+        return pooled;
+    }
+
+    @Benchmark
+    public BufferedImage renderEveningView() {
+        return ScheduleVisualizer.renderView(eveningView, USER);
+    }
+
+    @Benchmark
+    public byte[] encodeImageIO(EncodedSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return recordSize(out.toByteArray(), size);
+    }
+
+    @Benchmark
+    public byte[] encodePalette(EncodedSize size) throws IOException {
+        return recordSize(encoder.encode(image), size);
+    }
+
+    @Benchmark
+    public byte[] encodeEveningView(EncodedSize size) throws IOException {
+        return recordSize(encoder.encode(eveningImage), size);
+    }
+
+    @Benchmark
+    public byte[] renderAndEncode() throws IOException {
+        // A render cache miss on an unchanged schedule: overlay on the current base layer, then palette encoding
+        ScheduleVisualizer.renderInto(pooled, USER);
+        return encoder.encode(pooled);
+    }
+
+    @Benchmark
+    public byte[] renderAndEncodeAfterChange() throws IOException {
+        // The !display path right after a change: repaint, overlay, then palette encoding
+        changeSchedule();
+        ScheduleVisualizer.renderInto(pooled, USER);
+        return encoder.encode(pooled);
+    }
+
+    /**
+     * Reserves and cancels the benchmarks' own block, leaving the schedule as it was but two
+     * versions newer, with four slots to repaint.
+     */
+    private static void changeSchedule() {
+        Schedule.addReservation(1, ScheduleFixtures.BENCH_USER, ScheduleFixtures.RESERVATION_START, 2.0);
+        Schedule.cancelReservationInRoom(true, ScheduleFixtures.BENCH_USER, ScheduleFixtures.RESERVATION_START);
+    }
+
+    private static byte[] recordSize(byte[] png, EncodedSize size) {
+        size.bytes = png.length;
+        return png;
+    }
+}
@@ -0,0 +1,78 @@
+package com.practiceroombot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline costs of the Schedule operations behind the booking commands, on an empty, a half-full
+ * and a full week. Run with the gc profiler (the jmh profile does by default) to see allocation per call.
+ * Each mutation is measured together with the operation that undoes it, so every invocation sees
+ * the same week without a per-invocation setup, whose timestamps would distort these microsecond-scale
+ * calls and whose allocation the gc profiler would count anyway. Time and allocation are per pair;
+ * compare a pair across occupancies and revisions rather than halving it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScheduleBenchmark {
+
+    @Param({"empty", "half", "full"})
+    public String occupancy;
+
+    @Setup(Level.Trial)
+    public void fillWeek() {
+        ScheduleFixtures.fill(occupancy);
+    }
+
+    @Benchmark
+    public long reserveThenCancel() {
+        Schedule.addReservation(1, ScheduleFixtures.BENCH_USER, ScheduleFixtures.RESERVATION_START, 2.0);
+        Schedule.cancelReservationInRoom(true, ScheduleFixtures.BENCH_USER, ScheduleFixtures.RESERVATION_START);
+        return Schedule.getVersion();
+    }
+
+    @Benchmark
+    public boolean checkUserLimitWithinLimit() {
+        Schedule.checkUserLimit(ScheduleFixtures.BENCH_USER, 2.0);
+        return true;
+    }
+
+    @Benchmark
+    public boolean checkUserLimitExceeded() {
+        // Rejections throw and log, as every over-limit reservation attempt does
+        try {
+            Schedule.checkUserLimit(ScheduleFixtures.BENCH_USER, 3.5);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public long recordThenCancel() {
+        Schedule.addRecordingSession(ScheduleFixtures.RECORDING_START, 2.0);
+        Schedule.cancelRecordingSession(ScheduleFixtures.RECORDING_START);
+        return Schedule.getVersion();
+    }
+
+    @Benchmark
+    public boolean raidThenRemove() {
+        Schedule.addRaid(ScheduleFixtures.RAID_START, 2.0);
+        return Schedule.removeRaidInRange(ScheduleFixtures.RAID_START);
+    }
+}
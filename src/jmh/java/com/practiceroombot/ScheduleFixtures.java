@@ -0,0 +1,85 @@
+package com.practiceroombot;
+
+/**
+ * Fills the schedule with representative weeks for the benchmarks.
+ * The slots the benchmarks themselves reserve, record and raid are always left free, so every
+ * benchmark measures the same successful path regardless of how busy the rest of the week is.
+ */
+final class ScheduleFixtures {
+
+    // Name used for the benchmarks' own reservations; never used by the fixtures
+    static final String BENCH_USER = "bench";
+
+    // Two-hour blocks kept free for the benchmarks
+    static final int RESERVATION_START = 120; // Room 1
+    static final int RECORDING_START = 200;   // Both rooms
+    static final int RAID_START = 260;
+
+    private static final int BLOCK_SLOTS = 6; // Each fixture member reserves the 3-hour weekly maximum
+
+    private ScheduleFixtures() {
+    }
+
+    /**
+     * Resets the schedule and fills it to the given occupancy.
+     *
+     * @param occupancy "empty", "half" (every other 3-hour block of each room), "full" (every block),
+     *                  "sparse" (one afternoon reservation a day), "dense" (every block plus evening raids)
+     *                  or "recordings" (every other block plus a recording session every evening).
+     */
+    static void fill(String occupancy) {
+        Schedule.resetCalendar();
+        switch (occupancy) {
+            case "empty" -> {
+            }
+            case "half" -> reserveBlocks(2 * BLOCK_SLOTS);
+            case "full" -> reserveBlocks(BLOCK_SLOTS);
+            case "sparse" -> {
+                for (int day = 0; day < 7; day++) {
+                    Schedule.addReservation(day % 2 + 1, "member" + day, TimeIntegerizer.integerizeIndices(day, 30), 2.0);
+                }
+            }
+            case "dense" -> {
+                reserveBlocks(BLOCK_SLOTS);
+                for (int day = 0; day < 7; day++) {
+                    Schedule.addRaid(TimeIntegerizer.integerizeIndices(day, 40), 3.0);
+                }
+            }
+            case "recordings" -> {
+                // Recordings first, since they cannot take slots reserved in both rooms
+                for (int day = 0; day < 7; day++) {
+                    Schedule.addRecordingSession(TimeIntegerizer.integerizeIndices(day, 38), 2.0);
+                }
+                reserveBlocks(2 * BLOCK_SLOTS);
+            }
+            default -> throw new IllegalArgumentException("Unknown occupancy: " + occupancy);
+        }
+    }
+
+    /**
+     * Gives a different member every step-th 3-hour block of each room, except for the benchmarks' own slots.
+     *
+     * @param step The distance between the starts of reserved blocks, in slots.
+     */
+    private static void reserveBlocks(int step) {
+        int member = 0;
+        for (int room = 1; room <= 2; room++) {
+            for (int start = 0; start + BLOCK_SLOTS <= Schedule.SLOTS_PER_WEEK; start += step) {
+                if (!isKeptFree(room, start, start + BLOCK_SLOTS)) {
+                    Schedule.addReservation(room, "member" + member++, start, BLOCK_SLOTS / 2.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the block overlaps a slot the benchmarks use.
+     */
+    private static boolean isKeptFree(int room, int start, int end) {
+        return (room == 1 && overlaps(start, end, RESERVATION_START)) || overlaps(start, end, RECORDING_START);
+    }
+
+    private static boolean overlaps(int start, int end, int blockStart) {
+        return start < blockStart + 4 && blockStart < end;
+    }
+}
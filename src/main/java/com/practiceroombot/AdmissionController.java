@@ -0,0 +1,242 @@
+package com.practiceroombot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether an incoming command may run.
+ * Each user has a token bucket per cost class, and the number of commands queued or running
+ * across all users is bounded, so overload is answered cheaply instead of queueing without limit.
+ */
+public class AdmissionController {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    // Number of tracked users at which idle buckets are pruned, and new users are turned away if none are idle
+    static final int MAX_TRACKED_USERS = 10_000;
+
+    // Shortest time between two prunes, so a flood of new users costs at most one scan per interval
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Outcome of an admission decision.
+     */
+    public enum Decision {
+        // The command may run
+        ADMITTED,
+        // The user exceeded their rate limit and should be told so
+        RATE_LIMITED,
+        // The user exceeded their rate limit and has already been told so
+        DROPPED,
+        // Too many commands are queued across all users
+        BUSY
+    }
+
+    private final double[] capacities = new double[CostClass.values().length];
+    private final double[] refillsPerMinute = new double[CostClass.values().length];
+    private final int maxInFlight;
+
+    // Token buckets per user, indexed by cost class ordinal
+    private final ConcurrentHashMap<Long, TokenBucket[]> buckets = new ConcurrentHashMap<>();
+
+    // When the buckets were last pruned; starts an interval back so the first prune can run at once
+    private final AtomicLong lastPruneNanos = new AtomicLong(System.nanoTime() - PRUNE_INTERVAL_NANOS);
+
+    // Commands admitted but not yet finished
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Decision counters indexed by [cost class][decision]
+    private final LongAdder[][] decisions = new LongAdder[CostClass.values().length][Decision.values().length];
+
+    /**
+     * Creates an admission controller.
+     *
+     * @param textCapacity          Burst size for text-only commands per user.
+     * @param textRefillPerMinute   Sustained text-only commands per user per minute.
+     * @param renderCapacity        Burst size for render-heavy commands per user.
+     * @param renderRefillPerMinute Sustained render-heavy commands per user per minute.
+     * @param maxInFlight           Maximum number of commands queued or running across all users.
+     */
+    public AdmissionController(double textCapacity, double textRefillPerMinute,
+                               double renderCapacity, double renderRefillPerMinute, int maxInFlight) {
+        capacities[CostClass.TEXT.ordinal()] = textCapacity;
+        refillsPerMinute[CostClass.TEXT.ordinal()] = textRefillPerMinute;
+        capacities[CostClass.RENDER.ordinal()] = renderCapacity;
+        refillsPerMinute[CostClass.RENDER.ordinal()] = renderRefillPerMinute;
+        this.maxInFlight = maxInFlight;
+
+        for (LongAdder[] row : decisions) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Creates an admission controller from configuration properties, using defaults for missing keys.
+     *
+     * @param properties The bot's configuration properties.
+     * @return The configured admission controller.
+     */
+    public static AdmissionController fromProperties(Properties properties) {
+        return new AdmissionController(
+                Double.parseDouble(properties.getProperty("admission.text.capacity", "5")),
+                Double.parseDouble(properties.getProperty("admission.text.refillPerMinute", "20")),
+                Double.parseDouble(properties.getProperty("admission.render.capacity", "2")),
+                Double.parseDouble(properties.getProperty("admission.render.refillPerMinute", "4")),
+                Integer.parseInt(properties.getProperty("admission.maxInFlight", "64")));
+    }
+
+    /**
+     * Decides whether a command may run. An admitted command must be followed by
+     * exactly one call to {@link #release()} once it has finished.
+     *
+     * @param userId The ID of the user who issued the command.
+     * @param cost   The cost class of the command.
+     * @return The admission decision.
+     */
+    public Decision admit(long userId, CostClass cost) {
+        long now = System.nanoTime();
+        TokenBucket bucket = bucketFor(userId, cost, now);
+
+        // Claim a global slot before spending a token, so a command shed for load costs the user nothing
+        Decision decision;
+        if (bucket == null) {
+            decision = Decision.BUSY;
+        } else if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            decision = Decision.BUSY;
+        } else if (!bucket.tryAcquire(now)) {
+            inFlight.decrementAndGet();
+            decision = bucket.markWarned() ? Decision.RATE_LIMITED : Decision.DROPPED;
+        } else {
+            decision = Decision.ADMITTED;
+        }
+
+        decisions[cost.ordinal()][decision.ordinal()].increment();
+        if (decision != Decision.ADMITTED) {
+            logger.debug("Command of user {} ({}) not admitted: {}", userId, cost, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Charges an admitted command for more expensive work it decided to do once its arguments were
+     * known, such as a display command that turned out to need an image. The command keeps its
+     * global slot whatever the decision.
+     *
+     * @param userId The ID of the user who issued the command.
+     * @param cost   The cost class of the extra work.
+     * @return ADMITTED if the user had a token for the work, BUSY if too many users are tracked to
+     * track this one, otherwise RATE_LIMITED or DROPPED.
+     */
+    public Decision charge(long userId, CostClass cost) {
+        long now = System.nanoTime();
+        TokenBucket bucket = bucketFor(userId, cost, now);
+        Decision decision;
+        if (bucket == null) {
+            decision = Decision.BUSY;
+        } else if (bucket.tryAcquire(now)) {
+            decision = Decision.ADMITTED;
+        } else {
+            decision = bucket.markWarned() ? Decision.RATE_LIMITED : Decision.DROPPED;
+        }
+
+        decisions[cost.ordinal()][decision.ordinal()].increment();
+        if (decision != Decision.ADMITTED) {
+            logger.debug("Work of user {} ({}) not admitted: {}", userId, cost, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Marks an admitted command as finished.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return The number of admitted commands that have not finished yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns how many times a decision was made for a cost class since startup.
+     *
+     * @param cost     The cost class.
+     * @param decision The decision.
+     * @return The number of such decisions.
+     */
+    public long getDecisionCount(CostClass cost, Decision decision) {
+        return decisions[cost.ordinal()][decision.ordinal()].sum();
+    }
+
+    /**
+     * Summarizes the limiter decisions for display.
+     *
+     * @return One line per cost class with its decision counts, plus the commands in flight.
+     */
+    public String describeStats() {
+        StringBuilder stats = new StringBuilder();
+        for (CostClass cost : CostClass.values()) {
+            stats.append(cost.name().toLowerCase()).append(':');
+            for (Decision decision : Decision.values()) {
+                stats.append(' ').append(decision.name().toLowerCase()).append('=').append(getDecisionCount(cost, decision));
+            }
+            stats.append('\n');
+        }
+        return stats.append("in flight: ").append(inFlight.get()).append('/').append(maxInFlight).toString();
+    }
+
+    /**
+     * Returns a user's bucket for a cost class, tracking the user if they are new.
+     * Once MAX_TRACKED_USERS are tracked, idle users are pruned at most once per PRUNE_INTERVAL_NANOS;
+     * a new user who still does not fit is not tracked.
+     *
+     * @return The bucket, or null if the user cannot be tracked right now.
+     */
+    private TokenBucket bucketFor(long userId, CostClass cost, long now) {
+        TokenBucket[] userBuckets = buckets.get(userId);
+        if (userBuckets == null) {
+            if (buckets.size() >= MAX_TRACKED_USERS) {
+                long lastPrune = lastPruneNanos.get();
+                if (now - lastPrune >= PRUNE_INTERVAL_NANOS && lastPruneNanos.compareAndSet(lastPrune, now)) {
+                    // Users whose buckets have refilled behave exactly like new users
+                    buckets.values().removeIf(candidate -> isIdle(candidate, now));
+                }
+                if (buckets.size() >= MAX_TRACKED_USERS) {
+                    return null;
+                }
+            }
+            userBuckets = buckets.computeIfAbsent(userId, id -> {
+                TokenBucket[] created = new TokenBucket[CostClass.values().length];
+                for (CostClass costClass : CostClass.values()) {
+                    int i = costClass.ordinal();
+                    created[i] = new TokenBucket(capacities[i], refillsPerMinute[i], now);
+                }
+                return created;
+            });
+        }
+        return userBuckets[cost.ordinal()];
+    }
+
+    private static boolean isIdle(TokenBucket[] userBuckets, long now) {
+        for (TokenBucket bucket : userBuckets) {
+            if (!bucket.isFull(now)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.practiceroombot;
+
+/**
+ * Types of arguments a command can declare in the command grammar.
+ * Each type knows how to parse itself straight out of the raw message text.
+ */
+public enum ArgumentType {
+    ROOM("Invalid room number: Must be either 1 or 2."),
+    DAY("Invalid day: "),
+    TIME("Invalid time format: "),
+    DURATION("Invalid duration: "),
+    WORD("");
+
+    // Prefix of the error reported when an argument of this type fails to parse
+    private final String errorPrefix;
+
+    ArgumentType(String errorPrefix) {
+        this.errorPrefix = errorPrefix;
+    }
+
+    /**
+     * Builds the error message for a token that failed to parse as this type.
+     *
+     * @param message The raw message text.
+     * @param start   The start offset of the token, inclusive.
+     * @param end     The end offset of the token, exclusive.
+     * @return A message describing the invalid argument.
+     */
+    String describeError(String message, int start, int end) {
+        return this == ROOM ? errorPrefix : errorPrefix + message.substring(start, end);
+    }
+}
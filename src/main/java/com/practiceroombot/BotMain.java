@@ -4,9 +4,12 @@ import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -18,6 +21,10 @@ public class BotMain {
     // Logger for this class, using SLF4J LoggerFactory
     private static final Logger logger = LoggerFactory.getLogger(BotMain.class);
 
+    // Gateway intents the bot needs to read commands. Role events are always delivered, but the privileged
+    // GUILD_MEMBERS intent is not requested, so member role changes are picked up from the roles each command carries.
+    private static final List<GatewayIntent> INTENTS = List.of(GatewayIntent.GUILD_MESSAGES, GatewayIntent.DIRECT_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+
     /**
      * The main entry point of the PracticeRoomBot.
      *
@@ -32,11 +39,11 @@ public class BotMain {
             // Validate the bot token obtained from the properties
             String botToken = validateToken(properties);
 
-            // Build the JDABuilder with the bot token
-            JDABuilder builder = JDABuilder.createDefault(botToken);
+            // Build the JDABuilder with the bot token and the configured startup profile
+            JDABuilder builder = createBuilder(botToken, properties);
 
             // Initialize and start the bot
-            initializeAndStartBot(builder);
+            initializeAndStartBot(builder, properties);
         } catch (Exception e) {
             // Log any exceptions that occur during initialization
             logger.error("Error during bot initialization: ", e);
@@ -84,24 +91,83 @@ public class BotMain {
         return botToken;
     }
 
+    /**
+     * Creates the JDABuilder for the startup profile selected by the bot.profile property.
+     * The "light" profile keeps JDA's memory footprint small: all optional cache flags are off,
+     * members are not chunked, and only the most recently active members are cached
+     * (bot.light.maxCachedMembers). Roles are resolved lazily by the PermissionCache on first use.
+     *
+     * @param botToken   The validated bot token.
+     * @param properties The configuration properties.
+     * @return A JDABuilder configured for the selected profile.
+     */
+    static JDABuilder createBuilder(String botToken, Properties properties) {
+        String profile = properties.getProperty("bot.profile", "default");
+        if (!profile.equalsIgnoreCase("light")) {
+            return JDABuilder.createDefault(botToken);
+        }
+
+        int maxCachedMembers = Integer.parseInt(properties.getProperty("bot.light.maxCachedMembers", "200"));
+        logger.info("Using light gateway profile, caching at most {} members", maxCachedMembers);
+
+        // createLight disables every optional CacheFlag
+        return JDABuilder.createLight(botToken, INTENTS)
+                .setMemberCachePolicy(MemberCachePolicy.lru(maxCachedMembers).unloadUnless(MemberCachePolicy.OWNER))
+                .setChunkingFilter(ChunkingFilter.NONE)
+                .setLargeThreshold(50);
+    }
+
     /**
      * Initializes and starts the Discord bot.
      *
-     * @param builder The JDABuilder used to build the JDA instance.
+     * @param builder    The JDABuilder used to build the JDA instance.
+     * @param properties The configuration properties, used for admission control limits and role IDs.
      */
-    static void initializeAndStartBot(JDABuilder builder) {
+    static void initializeAndStartBot(JDABuilder builder, Properties properties) {
         try {
+            // Resolve command permissions from configured role IDs and keep them cached
+            PermissionCache permissionCache = PermissionCache.fromProperties(properties);
+            CommandHandlerUtilities.setPermissionCache(permissionCache);
+
+            // Send responses in priority order within Discord's rate limits
+            OutboundDispatcher dispatcher = new OutboundDispatcher(new JdaOutboundTransport()).start();
+
+            // Limit each user's commands and the work queued across all users
+            AdmissionController admissionController = AdmissionController.fromProperties(properties);
+
+            // Expose command counts, phase latencies and bot state to a Prometheus scraper if enabled
+            MetricsRegistry.global().registerBotMetrics(dispatcher, admissionController);
+            MetricsServer.fromProperties(properties);
+
+            // Keep a continuous flight recording that officers can dump with !debug jfr
+            FlightRecording.setActive(FlightRecording.fromProperties(properties));
+
+            // Encode schedule images as palette PNGs and reuse them until the schedule changes
+            ScheduleImageSender.setRenderCache(RenderCache.fromProperties(properties));
+            ScheduleImageSender.setPngEncoder(PalettePngEncoder.fromProperties(properties));
+
+            // Render recently active users' images in the background after each change
+            ScheduleImageSender.setPrerenderer(SchedulePrerenderer.fromProperties(properties));
+
+            // Publish one image per burst of changes, or keep a pinned live board up to date if enabled
+            ScheduleImageSender.setPublisher(SchedulePublisher.fromProperties(properties, dispatcher,
+                    LiveScheduleBoard.fromProperties(properties, dispatcher)));
+
             // Set the bot's activity and enable necessary intents
             builder.setActivity(Activity.playing("Type !phelp for commands"))
-                    .enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.DIRECT_MESSAGES, GatewayIntent.MESSAGE_CONTENT)
-                    .addEventListeners(new CommandListener("1166092015465922693"));
+                    .enableIntents(INTENTS)
+                    .addEventListeners(permissionCache, new CommandListener("1166092015465922693", new CommandExecutor(),
+                            admissionController, ResponseCoalescer.fromProperties(properties, dispatcher)));
 
             // Build the JDA instance and wait for it to be ready
             JDA jda = builder.build();
             jda.awaitReady();
 
             // Log the status indicating the bot is running
-            logger.info("Bot is running!");
+            logger.info("Bot is running! {}", HeapReporter.describeHeap());
+
+            // Periodically report heap usage and cache sizes
+            HeapReporter.start(jda, Long.parseLong(properties.getProperty("bot.heapReportMinutes", "0")));
         } catch (Exception e) {
             // Log any exceptions that occur during bot initialization
             logger.error("Error during bot initialization: ", e);
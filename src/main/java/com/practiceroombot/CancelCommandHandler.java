@@ -1,95 +1,50 @@
 package com.practiceroombot;
 
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-
-import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CancelCommandHandler implements ICommandHandler {
 
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(CancelCommandHandler.class);
+
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
         String userMention = event.getAuthor().getAsMention(); // Get the mention string
         try {
-            // Check the number of arguments
-            if (parts.length != 4) {
-                throw new IllegalArgumentException(" Failed: Provide three arguments: room number, day, and time.");
-            }
-
-            int roomNumber = validateRoomNumber(parts[1]);
-            String day = validateDay(parts[2]);
-            String time = validateTime(parts[3]);
+            int roomNumber = args.getRoom(0);
 
             String user = event.getAuthor().getName();
-            int timeslotIndex = TimeIntegerizer.integerizeTime(time, day);
+            int timeslotIndex = args.getSlotIndex(1, 2);
             int currentSlotIndex = RealTimeTracker.getCurrentTimeIndex();
 
             boolean isRoomOne = roomNumber == 1;
             String[] schedule = isRoomOne ? Schedule.pr1schedule : Schedule.pr2schedule;
 
-            if (Schedule.isUserReservationPresent(user, isRoomOne, timeslotIndex)) {
-                int start = Schedule.findReservationStart(schedule, user, timeslotIndex);
+            // Hold the schedule lock so the reservation cannot change between lookup and cancellation
+            synchronized (Schedule.class) {
+                if (!Schedule.isUserReservationPresent(user, isRoomOne, timeslotIndex)) {
+                    response.reply(userMention + " Failed: No reservation found to cancel at the specified timeslot.");
+                    return;
+                }
 
+                int start = Schedule.findReservationStart(schedule, user, timeslotIndex);
                 if (start < currentSlotIndex) {
-                    event.getChannel().sendMessage(userMention + " fFailed: Cannot cancel a reservation for which part or all has already occurred.").queue();
+                    response.reply(userMention + " fFailed: Cannot cancel a reservation for which part or all has already occurred.");
                     return;
                 }
 
                 Schedule.cancelReservationInRoom(isRoomOne, user, start);
-                event.getChannel().sendMessage(userMention + " Your reservation has been cancelled successfully.").queue();
-                ScheduleImageSender.sendScheduleImage(event);
-            } else {
-                event.getChannel().sendMessage(userMention + " Failed: No reservation found to cancel at the specified timeslot.").queue();
             }
+
+            response.reply(userMention + " Your reservation has been cancelled successfully.");
+            ScheduleImageSender.publishScheduleChange(event, response);
         } catch (IllegalArgumentException e) {
-            event.getChannel().sendMessage(userMention + " Failed: " + e.getMessage()).queue();
+            response.reply(userMention + " Failed: " + e.getMessage());
         } catch (Exception e) {
-            event.getChannel().sendMessage(userMention + " Failed: An unexpected error occurred.").queue();
-            e.printStackTrace();
+            response.reply(userMention + " Failed: An unexpected error occurred.");
+            logger.error("Error while cancelling a reservation: ", e);
         }
     }
-
-
-    private int validateRoomNumber(String argument) throws IllegalArgumentException {
-        if (!isRoomNumber(argument)) {
-            throw new IllegalArgumentException("Invalid room number: Must be either 1 or 2.");
-        }
-        return Integer.parseInt(argument);
-    }
-
-    private String validateDay(String argument) throws IllegalArgumentException {
-        if (!isDay(argument)) {
-            throw new IllegalArgumentException("Invalid day: " + argument);
-        }
-        return argument;
-    }
-
-    private String validateTime(String argument) throws IllegalArgumentException {
-        if (!TimeIntegerizer.isValidTimeFormat(argument)) {
-            throw new IllegalArgumentException("Invalid time format: " + argument);
-        }
-        return argument;
-    }
-
-    /**
-     * Determines if the given argument is a valid room number.
-     *
-     * @param argument The argument to check.
-     * @return True if the argument is a valid room number, false otherwise.
-     */
-    boolean isRoomNumber(String argument) {
-        return argument.matches("1|2");
-    }
-
-    /**
-     * Determines if the given argument is a valid day of the week.
-     *
-     * @param argument The argument to check.
-     * @return True if the argument is a valid day, false otherwise.
-     */
-    boolean isDay(String argument) {
-        String[] days = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
-        argument = argument.toLowerCase();
-        String finalArgument = argument;
-        return Arrays.stream(days).anyMatch(day -> day.startsWith(finalArgument));
-    }
 }
@@ -0,0 +1,194 @@
+package com.practiceroombot;
+
+/**
+ * Typed arguments of a single command, parsed according to its CommandSpec.
+ * Arguments are stored as offsets into the original message together with their parsed values,
+ * so handlers receive rooms, days, times and durations without re-parsing any text.
+ * All of this lives in one array sized for the spec, so parsing a command allocates just this
+ * object and that array. Instances are not reused, since a handler reads its arguments on a
+ * command executor thread while the event thread goes on parsing later messages.
+ */
+public class CommandArguments {
+
+    // Maximum number of arguments any command accepts
+    static final int MAX_ARGUMENTS = 8;
+
+    private static final long[] NO_SLOTS = new long[0];
+
+    private final String message;
+
+    // Two entries per argument: its start and end offsets packed as start << 32 | end, then its value,
+    // which holds the raw bits of the double for DURATION arguments
+    private long[] slots = NO_SLOTS;
+    private int size;
+    private String error;
+
+    /**
+     * Creates an empty argument list over the given message.
+     *
+     * @param message The raw message text the arguments refer to.
+     */
+    CommandArguments(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Tokenizes the message from the given offset and parses each token according to the spec.
+     * On failure the error is recorded and parsing stops; check {@link #getError()} before use.
+     *
+     * @param spec The spec describing the expected arguments.
+     * @param from The offset just past the command name.
+     * @return This argument list.
+     */
+    CommandArguments parse(CommandSpec spec, int from) {
+        ArgumentType[] required = spec.getRequired();
+        ArgumentType[] optional = spec.getOptional();
+        int maxArguments = required.length + optional.length;
+        if (maxArguments > 0) {
+            slots = new long[2 * maxArguments];
+        }
+
+        int position = CommandTokenizer.skipWhitespace(message, from);
+        while (position < message.length()) {
+            if (size == maxArguments) {
+                if (!spec.isLenient()) {
+                    error = "Usage: " + spec.getUsage();
+                }
+                return this;
+            }
+
+            int end = CommandTokenizer.tokenEnd(message, position);
+            ArgumentType type = size < required.length ? required[size] : optional[size - required.length];
+            if (!bind(type, position, end)) {
+                error = type == ArgumentType.WORD ? "Usage: " + spec.getUsage() : type.describeError(message, position, end);
+                return this;
+            }
+            position = CommandTokenizer.skipWhitespace(message, end);
+        }
+
+        if (size < required.length) {
+            error = "Usage: " + spec.getUsage();
+        }
+        return this;
+    }
+
+    /**
+     * Parses the token at the given offsets as the given type and appends it.
+     *
+     * @return true if the token was valid for the type, false otherwise.
+     */
+    private boolean bind(ArgumentType type, int start, int end) {
+        long value;
+        if (type == ArgumentType.DURATION) {
+            double duration = CommandTokenizer.parseDuration(message, start, end);
+            if (duration < 0) {
+                return false;
+            }
+            value = Double.doubleToRawLongBits(duration);
+        } else {
+            int parsed = switch (type) {
+                case ROOM -> CommandTokenizer.parseRoom(message, start, end);
+                case DAY -> CommandTokenizer.parseDay(message, start, end);
+                case TIME -> CommandTokenizer.parseTime(message, start, end);
+                default -> 0;
+            };
+            if (parsed < 0) {
+                return false;
+            }
+            value = parsed;
+        }
+        slots[2 * size] = (long) start << 32 | end;
+        slots[2 * size + 1] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return The error produced while parsing, or null if all arguments are valid.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return The number of arguments given.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The room number (1 or 2) of the ROOM argument at the given position.
+     */
+    public int getRoom(int position) {
+        return (int) slots[2 * checkPosition(position) + 1];
+    }
+
+    /**
+     * @return The day index (0 for Monday through 6 for Sunday) of the DAY argument at the given position.
+     */
+    public int getDayIndex(int position) {
+        return (int) slots[2 * checkPosition(position) + 1];
+    }
+
+    /**
+     * @return The half-hour index within the day (0-47) of the TIME argument at the given position.
+     */
+    public int getTimeIndex(int position) {
+        return (int) slots[2 * checkPosition(position) + 1];
+    }
+
+    /**
+     * Combines a DAY and a TIME argument into an index in the weekly schedule.
+     *
+     * @param dayPosition  The position of the DAY argument.
+     * @param timePosition The position of the TIME argument.
+     * @return The schedule slot index for the given day and time.
+     */
+    public int getSlotIndex(int dayPosition, int timePosition) {
+        return TimeIntegerizer.integerizeIndices(getDayIndex(dayPosition), getTimeIndex(timePosition));
+    }
+
+    /**
+     * @return The duration in hours of the DURATION argument at the given position.
+     */
+    public double getDuration(int position) {
+        return Double.longBitsToDouble(slots[2 * checkPosition(position) + 1]);
+    }
+
+    /**
+     * Checks whether the argument at the given position equals the given word, ignoring case.
+     *
+     * @return true if the argument is present and matches, false otherwise.
+     */
+    public boolean isWord(int position, String word) {
+        return position < size && message.regionMatches(true, start(position), word, 0, word.length())
+                && end(position) - start(position) == word.length();
+    }
+
+    /**
+     * Returns the argument at the given position exactly as the user typed it.
+     * This copies the text, so it is intended for composing responses.
+     *
+     * @return The raw text of the argument.
+     */
+    public String getText(int position) {
+        checkPosition(position);
+        return message.substring(start(position), end(position));
+    }
+
+    private int start(int position) {
+        return (int) (slots[2 * position] >>> 32);
+    }
+
+    private int end(int position) {
+        return (int) slots[2 * position];
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("No argument at position " + position);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,34 @@
+package com.practiceroombot;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event spanning one command from receipt to its flushed response, or to its
+ * rejection by admission control or parsing.
+ */
+@Name("practiceroombot.CommandDispatch")
+@Label("Command Dispatch")
+@Category({"Practice Room Bot", "Commands"})
+@Description("A command from receipt until its response is flushed")
+public class CommandDispatchEvent extends Event {
+
+    @Label("Command")
+    String command;
+
+    @Label("User ID")
+    long userId;
+
+    @Label("Outcome")
+    @Description("completed, failed, rate_limited, busy, dropped, unknown or invalid")
+    String outcome;
+
+    @Label("Queue Time")
+    @Description("Time the command waited for a command executor thread")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+}
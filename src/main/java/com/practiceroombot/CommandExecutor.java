@@ -0,0 +1,160 @@
+package com.practiceroombot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs command handlers off the JDA event thread.
+ * Every command runs on its own virtual thread, while commands from the same user are kept
+ * in a per-user mailbox and executed strictly in the order they were received.
+ */
+public class CommandExecutor {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(CommandExecutor.class);
+
+    // Executor the mailboxes are drained on
+    private final ExecutorService workers;
+
+    // Mailboxes of users with a command running; a mailbox is removed as soon as it drains
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Commands waiting behind the one currently running for a user.
+     */
+    private static final class Mailbox {
+        final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    }
+
+    /**
+     * Creates an executor backed by virtual threads, or by a platform thread pool on runtimes without them.
+     */
+    public CommandExecutor() {
+        this(createWorkers());
+    }
+
+    /**
+     * Creates an executor that drains mailboxes on the given executor service.
+     *
+     * @param workers The executor service to run commands on.
+     */
+    CommandExecutor(ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Queues a command for a user. The command starts immediately unless an earlier
+     * command of the same user is still running, in which case it runs right after it.
+     *
+     * @param userId  The ID of the user who issued the command.
+     * @param command The command to run.
+     */
+    public void submit(long userId, Runnable command) {
+        boolean[] idle = new boolean[1];
+        mailboxes.compute(userId, (id, mailbox) -> {
+            if (mailbox == null) {
+                idle[0] = true;
+                return new Mailbox();
+            }
+            mailbox.pending.add(command);
+            return mailbox;
+        });
+
+        if (idle[0]) {
+            workers.execute(() -> drain(userId, command));
+        }
+    }
+
+    /**
+     * Runs a user's commands one after another until their mailbox is empty.
+     *
+     * @param userId The ID of the user whose mailbox is drained.
+     * @param first  The command that opened the mailbox.
+     */
+    private void drain(long userId, Runnable first) {
+        Runnable next = first;
+        while (next != null) {
+            boolean finished = false;
+            try {
+                next.run();
+                finished = true;
+            } catch (Exception e) {
+                logger.error("Command for user {} failed", userId, e);
+                finished = true;
+            } finally {
+                if (!finished) {
+                    // An Error escapes to the worker; hand the rest of the mailbox to a new drain so it is not stranded
+                    Runnable rest = pollOrClose(userId);
+                    if (rest != null) {
+                        workers.execute(() -> drain(userId, rest));
+                    }
+                }
+            }
+            next = pollOrClose(userId);
+        }
+    }
+
+    /**
+     * Takes the next command from a user's mailbox, removing the mailbox if it is empty.
+     *
+     * @param userId The ID of the user.
+     * @return The next command, or null if the mailbox was empty and has been removed.
+     */
+    private Runnable pollOrClose(long userId) {
+        Runnable[] next = new Runnable[1];
+        mailboxes.computeIfPresent(userId, (id, mailbox) -> {
+            next[0] = mailbox.pending.poll();
+            return next[0] != null ? mailbox : null;
+        });
+        return next[0];
+    }
+
+    /**
+     * @return The number of users that currently have a command running.
+     */
+    public int activeUsers() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Creates the executor service commands run on.
+     * Virtual threads are looked up reflectively so the bot still runs on Java 17,
+     * where it falls back to a fixed pool of daemon platform threads.
+     *
+     * @return The executor service for command execution.
+     */
+    private static ExecutorService createWorkers() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("Running commands on virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            logger.info("Virtual threads unavailable, running commands on {} platform threads", threads);
+            return Executors.newFixedThreadPool(threads, daemonThreads("command-worker"));
+        }
+    }
+
+    /**
+     * Creates a thread factory producing named daemon threads.
+     *
+     * @param prefix The prefix of the thread names.
+     * @return The thread factory.
+     */
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.practiceroombot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Declarative grammar of the bot's commands.
+ * Commands are defined once at startup and compiled into a CommandTrie used for dispatch.
+ */
+public class CommandGrammar {
+
+    private final List<CommandSpec> specs = new ArrayList<>();
+
+    /**
+     * Defines a command.
+     *
+     * @param name     The command name, without the prefix.
+     * @param handler  The handler that executes the command.
+     * @param usage    The usage text shown when the arguments do not match.
+     * @param required The types of the required arguments, in order.
+     * @return The spec, for declaring optional arguments.
+     */
+    public CommandSpec define(String name, ICommandHandler handler, String usage, ArgumentType... required) {
+        CommandSpec spec = new CommandSpec(name, handler, usage, required);
+        specs.add(spec);
+        return spec;
+    }
+
+    /**
+     * Compiles the defined commands into a dispatch trie.
+     *
+     * @return A trie resolving command names to their specs.
+     * @throws IllegalArgumentException if a command name is defined twice or is not made of letters.
+     */
+    public CommandTrie compile() {
+        CommandTrie trie = new CommandTrie();
+        for (CommandSpec spec : specs) {
+            trie.insert(spec);
+        }
+        return trie;
+    }
+}
@@ -1,36 +1,61 @@
 package com.practiceroombot;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Properties;
+
+import static com.practiceroombot.ArgumentType.*;
 
 /**
  * Factory class for creating command handlers in the Discord bot.
- * This class maintains a mapping of command strings to their respective
- * ICommandHandler implementations and provides a method to retrieve them.
+ * This class declares the command grammar, associating each command string with its
+ * ICommandHandler implementation, argument types and cost class, and compiles it into a dispatch trie.
  */
 public class CommandHandlerFactory {
-    // Map to hold the associations between command strings and their handlers
-    private final Map<String, ICommandHandler> handlers;
+    // Trie resolving command names to their specs
+    private final CommandTrie commands;
 
     /**
-     * Constructor for CommandHandlerFactory.
-     * Initializes the handler map and associates command strings with their respective handlers.
+     * Constructor for CommandHandlerFactory using a default admission controller.
      */
     public CommandHandlerFactory() {
-        handlers = new HashMap<>();
-
-        // Initialize command handlers
-        handlers.put("reserve", new ReserveCommandHandler());
-        handlers.put("cancel", new CancelCommandHandler());
-        handlers.put("display", new DisplayCommandHandler());
-        handlers.put("raid", new RaidCommandHandler());
-        handlers.put("unraid", new UnraidCommandHandler());
-        handlers.put("phelp", new HelpCommandHandler());
-        handlers.put("record", new RecordCommandHandler());
-        handlers.put("unrecord", new UnrecordCommandHandler());
-        handlers.put("reset", new ResetScheduleCommandHandler());
-        handlers.put("whohas", new WhoHasCommandHandler());
-        handlers.put("debug", new DebugCommandHandler());
+        this(AdmissionController.fromProperties(new Properties()));
+    }
+
+    /**
+     * Constructor for CommandHandlerFactory.
+     * Declares every command with its handler and arguments and compiles the grammar.
+     *
+     * @param admissionController The admission controller whose decisions the debug command reports,
+     *                            and which charges the display command for images
+     */
+    public CommandHandlerFactory(AdmissionController admissionController) {
+        CommandGrammar grammar = new CommandGrammar();
+
+        // Declare command handlers and their arguments
+        grammar.define("reserve", new ReserveCommandHandler(), "!reserve <roomNumber> <day> <startTime> <duration>", ROOM, DAY, TIME, DURATION).cost(CostClass.RENDER);
+        grammar.define("cancel", new CancelCommandHandler(), "!cancel <roomNumber> <day> <startTime>", ROOM, DAY, TIME).cost(CostClass.RENDER);
+        grammar.define("display", new DisplayCommandHandler(admissionController), DisplayCommandHandler.USAGE + " | !display default <text|image>").optional(WORD, WORD, WORD, WORD, WORD);
+        grammar.define("raid", new RaidCommandHandler(), "!raid <day> <startTime> <duration> (Officers only)", DAY, TIME, DURATION);
+        grammar.define("unraid", new UnraidCommandHandler(), "!unraid <day> <startTime>", DAY, TIME).cost(CostClass.RENDER);
+        grammar.define("phelp", new HelpCommandHandler(), "!phelp").lenient();
+        grammar.define("record", new RecordCommandHandler(), "!record <day> <startTime> <duration>", DAY, TIME, DURATION);
+        grammar.define("unrecord", new UnrecordCommandHandler(), "!unrecord <day> <startTime>", DAY, TIME).cost(CostClass.RENDER);
+        grammar.define("reset", new ResetScheduleCommandHandler(), "!reset").lenient();
+        grammar.define("whohas", new WhoHasCommandHandler(), "!whohas <roomNumber> <day> <time>", ROOM, DAY, TIME);
+        grammar.define("debug", new DebugCommandHandler(admissionController), "!debug <code> [day] [time]", WORD).optional(DAY, TIME);
+
+        commands = grammar.compile();
+    }
+
+    /**
+     * Retrieves the command spec whose name spans the given range of a message.
+     *
+     * @param message The raw message text.
+     * @param start   The start offset of the command name, inclusive.
+     * @param end     The end offset of the command name, exclusive.
+     * @return The CommandSpec for the command, or null if no such command exists
+     */
+    public CommandSpec getSpec(String message, int start, int end) {
+        return commands.lookup(message, start, end);
     }
 
     /**
@@ -40,6 +65,7 @@ public class CommandHandlerFactory {
      * @return The ICommandHandler associated with the given command, or null if no handler exists
      */
     public ICommandHandler getHandler(String command) {
-        return handlers.get(command);
+        CommandSpec spec = commands.lookup(command, 0, command.length());
+        return spec != null ? spec.getHandler() : null;
     }
 }
@@ -2,10 +2,8 @@ package com.practiceroombot;
 
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.Role;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.Properties;
 
 /**
  * Utilities class for command handlers in the Discord bot.
@@ -13,26 +11,74 @@ import java.util.List;
  */
 public class CommandHandlerUtilities {
 
-    // List of roles considered as having officer access
-    private static final List<String> officerRoles = Arrays.asList("officer", "vp", "admin", "el presidente");
+    // Cache of member permissions used for all access checks
+    private static volatile PermissionCache permissionCache = PermissionCache.fromProperties(new Properties());
+
+    /**
+     * Replaces the permission cache used for access checks.
+     *
+     * @param cache The permission cache to use from now on.
+     */
+    public static void setPermissionCache(PermissionCache cache) {
+        permissionCache = cache;
+    }
+
+    /**
+     * @return The permission cache used for access checks.
+     */
+    public static PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
 
     /**
      * Checks if the member who sent a message has officer access based on their roles.
      *
      * @param event The MessageReceivedEvent containing information about the message and the sender
-     * @return true if the member has officer access, false otherwise
+     * @return true if the member lacks officer access, false otherwise
      */
     public static boolean lacksOfficerAccess(MessageReceivedEvent event) {
         Member member = event.getMember();
 
-        // Return false if member information is not available
+        // Members are unknown outside of guilds, so deny access
         if (member == null) {
             return true;
         }
 
-        // Check if any of the member's roles match the predefined officer roles
-        return member.getRoles().stream()
-                .map(Role::getName)
-                .noneMatch(roleName -> officerRoles.contains(roleName.toLowerCase()));
+        return !hasPermission(member, PermissionCache.OFFICER);
+    }
+
+    /**
+     * Checks if the member who sent a message lacks the practice room access role.
+     * Messages sent outside of a guild carry no member and are not restricted.
+     *
+     * @param event The MessageReceivedEvent containing information about the message and the sender
+     * @return true if the member lacks practice room access, false otherwise
+     */
+    public static boolean lacksPracticeRoomAccess(MessageReceivedEvent event) {
+        Member member = event.getMember();
+        return member != null && !hasPermission(member, PermissionCache.PRACTICE_ROOM);
+    }
+
+    /**
+     * Checks if the member who sent a message lacks administrator privileges.
+     *
+     * @param event The MessageReceivedEvent containing information about the message and the sender
+     * @return true if the member lacks administrator privileges, false otherwise
+     */
+    public static boolean lacksAdminAccess(MessageReceivedEvent event) {
+        Member member = event.getMember();
+        return member == null || !hasPermission(member, PermissionCache.ADMIN);
+    }
+
+    /**
+     * Checks a permission through the cache, timing the check as the authorization phase.
+     */
+    private static boolean hasPermission(Member member, int permission) {
+        long startNanos = System.nanoTime();
+        try {
+            return permissionCache.hasPermission(member, permission);
+        } finally {
+            MetricsRegistry.Phase.AUTHORIZATION.recordSince(startNanos);
+        }
     }
 }
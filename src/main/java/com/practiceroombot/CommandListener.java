@@ -2,16 +2,22 @@ package com.practiceroombot;
 
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Arrays;
 
 /**
  * Listener for Discord message events to handle commands.
  * This class extends ListenerAdapter and is responsible for processing
  * messages received in a specific channel as commands.
+ * Commands pass admission control, are parsed on the event thread and handed to a
+ * CommandExecutor, so slow handlers never hold up other events.
  */
 public class CommandListener extends ListenerAdapter {
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(CommandListener.class);
+
     // Prefix to identify commands in messages
     private static final String COMMAND_PREFIX = "!";
 
@@ -21,14 +27,33 @@ public class CommandListener extends ListenerAdapter {
     // Factory to get the appropriate handler for each command
     CommandHandlerFactory commandHandlerFactory;
 
+    // Executor running handlers off the event thread, in order per user
+    private final CommandExecutor commandExecutor;
+
+    // Rate limits and global load limit applied before a command is queued
+    private final AdmissionController admissionController;
+
+    // Merges the responses of commands in the same channel into single message requests
+    private final ResponseCoalescer responseCoalescer;
+
+    // Registry counting commands by outcome and timing them from receipt to response
+    private final MetricsRegistry metrics = MetricsRegistry.global();
+
     /**
-     * Constructor for CommandListener.
+     * Constructor for CommandListener with a specific executor, admission controller and response coalescer.
      *
-     * @param commandChannelId The ID of the Discord channel to listen for commands
+     * @param commandChannelId    The ID of the Discord channel to listen for commands
+     * @param commandExecutor     The executor to run command handlers on
+     * @param admissionController The admission controller deciding which commands may run
+     * @param responseCoalescer   The coalescer sending command responses
      */
-    public CommandListener(String commandChannelId) {
+    public CommandListener(String commandChannelId, CommandExecutor commandExecutor, AdmissionController admissionController,
+                           ResponseCoalescer responseCoalescer) {
         this.commandChannelId = commandChannelId;
-        this.commandHandlerFactory = new CommandHandlerFactory();
+        this.commandHandlerFactory = new CommandHandlerFactory(admissionController);
+        this.commandExecutor = commandExecutor;
+        this.admissionController = admissionController;
+        this.responseCoalescer = responseCoalescer;
     }
 
     /**
@@ -50,22 +75,104 @@ public class CommandListener extends ListenerAdapter {
             return;
         }
 
-        // Split the message into parts, trim them and filter out empty parts
-        String[] rawParts = message.split("\\s+");
-        String[] parts = Arrays.stream(rawParts).filter(str -> !str.isEmpty()).toArray(String[]::new);
-        String command = parts[0].substring(1).toLowerCase();  // Remove prefix and convert to lower case
+        // Resolve the command name directly from the message text
+        long receivedNanos = System.nanoTime();
+        CommandDispatchEvent dispatch = new CommandDispatchEvent();
+        dispatch.begin();
+        int nameEnd = CommandTokenizer.tokenEnd(message, COMMAND_PREFIX.length());
+        CommandSpec spec = commandHandlerFactory.getSpec(message, COMMAND_PREFIX.length(), nameEnd);
+        long parseNanos = System.nanoTime() - receivedNanos;
+        String commandName = spec != null ? spec.getName() : "unknown";
+        dispatch.command = commandName;
+        dispatch.userId = event.getAuthor().getIdLong();
 
-        // Get the handler for the extracted command
-        ICommandHandler handler = commandHandlerFactory.getHandler(command);
-        if (handler != null) {
-            try {
-                handler.handleCommand(event, parts);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        // Apply the user's rate limit and the global load limit before doing any work
+        String userMention = event.getAuthor().getAsMention();
+        CommandResponse response = new CommandResponse(event.getChannel(), responseCoalescer);
+        CostClass cost = spec != null ? spec.getCost() : CostClass.TEXT;
+        switch (admissionController.admit(event.getAuthor().getIdLong(), cost)) {
+            case RATE_LIMITED -> {
+                rejectCommand(dispatch, "rate_limited");
+                response.reply(userMention + " You're sending commands too quickly, please retry shortly.");
+                response.flush();
+                return;
+            }
+            case BUSY -> {
+                rejectCommand(dispatch, "busy");
+                response.reply(userMention + " The bot is busy right now, please retry shortly.");
+                response.flush();
+                return;
             }
-        } else {
+            case DROPPED -> {
+                rejectCommand(dispatch, "dropped");
+                return;
+            }
+            default -> {
+                // Admitted
+            }
+        }
+
+        if (spec == null) {
             // Respond if the command is unknown
-            event.getChannel().sendMessage("this command sucks and is not real").queue();
+            rejectCommand(dispatch, "unknown");
+            response.reply("this command sucks and is not real");
+            response.flush();
+            admissionController.release();
+            return;
+        }
+
+        // Parse the typed arguments declared by the command's grammar
+        long parseStart = System.nanoTime();
+        CommandArguments args = spec.parseArguments(message, nameEnd);
+        MetricsRegistry.Phase.PARSE.record(parseNanos + System.nanoTime() - parseStart);
+        if (args.getError() != null) {
+            rejectCommand(dispatch, "invalid");
+            response.reply(userMention + " Failed: " + args.getError());
+            response.flush();
+            admissionController.release();
+            return;
         }
+
+        // Run the handler on the executor; commands of the same user stay in order
+        countCommand(commandName, "admitted");
+        long submittedNanos = System.nanoTime();
+        commandExecutor.submit(event.getAuthor().getIdLong(), () -> {
+            dispatch.queueTime = System.nanoTime() - submittedNanos;
+            dispatch.outcome = "failed";
+            try {
+                spec.getHandler().handleCommand(event, args, response);
+                dispatch.outcome = "completed";
+            } catch (IOException e) {
+                logger.error("Error while handling command {}", spec.getName(), e);
+            } finally {
+                // Send everything the handler produced as one message
+                response.flush();
+                admissionController.release();
+                metrics.histogram("bot_command_seconds", "command", commandName).recordSince(receivedNanos);
+                dispatch.commit();
+            }
+        });
+    }
+
+    /**
+     * Counts a command that was turned away before reaching its handler and commits its dispatch event.
+     *
+     * @param dispatch The dispatch event of the command, with the command name set.
+     * @param outcome  Why the command was turned away.
+     */
+    private void rejectCommand(CommandDispatchEvent dispatch, String outcome) {
+        countCommand(dispatch.command, outcome);
+        dispatch.outcome = outcome;
+        dispatch.commit();
+    }
+
+    /**
+     * Counts a command in bot_commands_total.
+     *
+     * @param command The name of the command, or "unknown".
+     * @param outcome What happened to the command.
+     */
+    private void countCommand(String command, String outcome) {
+        metrics.counter("bot_commands_total", "command", command, "outcome", outcome).increment();
     }
 }
@@ -0,0 +1,106 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects everything a command sends back to its channel.
+ * Text, mentions and attachments produced while handling one command are gathered here and
+ * sent together through the ResponseCoalescer, instead of one REST call per message.
+ */
+public class CommandResponse {
+
+    private final MessageChannel channel;
+    private final ResponseCoalescer coalescer;
+    private final StringBuilder content = new StringBuilder();
+    private final List<OutboundMessage.Attachment> attachments = new ArrayList<>();
+    private OutboundPriority priority = OutboundPriority.CONFIRMATION;
+
+    /**
+     * Creates an empty response.
+     *
+     * @param channel   The channel the response is sent to.
+     * @param coalescer The coalescer that merges and sends responses.
+     */
+    public CommandResponse(MessageChannel channel, ResponseCoalescer coalescer) {
+        this.channel = channel;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Adds a line of text to the response.
+     *
+     * @param text The text to send, including any mentions.
+     */
+    public void reply(String text) {
+        if (!content.isEmpty()) {
+            content.append('\n');
+        }
+        content.append(text);
+    }
+
+    /**
+     * Adds a file to the response.
+     *
+     * @param fileName The name of the file.
+     * @param data     The content of the file.
+     */
+    public void attach(String fileName, byte[] data) {
+        attachments.add(OutboundMessage.Attachment.of(fileName, data));
+    }
+
+    /**
+     * Adds a schedule image to the response. Tagging it with its view and schedule version lets
+     * the dispatcher drop it if a newer image of the same view is queued before it is sent.
+     *
+     * @param fileName The name of the file.
+     * @param data     The encoded image.
+     * @param view     The schedule view shown by the image.
+     * @param version  The schedule version the image was rendered from.
+     */
+    public void attachScheduleImage(String fileName, byte[] data, String view, long version) {
+        attachments.add(new OutboundMessage.Attachment(fileName, data, view, version));
+    }
+
+    /**
+     * Marks the response as informational, so confirmations and images are sent before it under load.
+     */
+    public void markInformational() {
+        priority = OutboundPriority.INFORMATIONAL;
+    }
+
+    /**
+     * Hands the response to the coalescer. Nothing is sent if the response is empty.
+     */
+    public void flush() {
+        if (!isEmpty()) {
+            coalescer.submit(this);
+        }
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty() && attachments.isEmpty();
+    }
+
+    public MessageChannel getChannel() {
+        return channel;
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+
+    public List<OutboundMessage.Attachment> getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * @return The priority of the response; responses without text are sent as images. The files of a
+     * confirmation ride along with its text unless the dispatcher moves them to the image lane under load.
+     */
+    public OutboundPriority getPriority() {
+        return content.isEmpty() ? OutboundPriority.IMAGE : priority;
+    }
+}
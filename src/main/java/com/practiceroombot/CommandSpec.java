@@ -0,0 +1,102 @@
+package com.practiceroombot;
+
+/**
+ * Declarative description of a single command: its name, handler, usage text
+ * and the types of the arguments it accepts.
+ */
+public class CommandSpec {
+
+    private static final ArgumentType[] NONE = new ArgumentType[0];
+
+    private final String name;
+    private final ICommandHandler handler;
+    private final String usage;
+    private final ArgumentType[] required;
+    private ArgumentType[] optional = NONE;
+    private boolean lenient;
+    private CostClass cost = CostClass.TEXT;
+
+    CommandSpec(String name, ICommandHandler handler, String usage, ArgumentType... required) {
+        if (required.length > CommandArguments.MAX_ARGUMENTS) {
+            throw new IllegalArgumentException("Too many arguments declared for command: " + name);
+        }
+        this.name = name;
+        this.handler = handler;
+        this.usage = usage;
+        this.required = required;
+    }
+
+    /**
+     * Declares trailing arguments that may be omitted.
+     *
+     * @param types The types of the optional arguments, in order.
+     * @return This spec.
+     */
+    public CommandSpec optional(ArgumentType... types) {
+        if (required.length + types.length > CommandArguments.MAX_ARGUMENTS) {
+            throw new IllegalArgumentException("Too many arguments declared for command: " + name);
+        }
+        this.optional = types;
+        return this;
+    }
+
+    /**
+     * Lets the command ignore any tokens beyond its declared arguments instead of rejecting them.
+     *
+     * @return This spec.
+     */
+    public CommandSpec lenient() {
+        this.lenient = true;
+        return this;
+    }
+
+    /**
+     * Declares the cost class of the command used for admission control. Commands are text-only by default.
+     *
+     * @param cost The cost class of the command.
+     * @return This spec.
+     */
+    public CommandSpec cost(CostClass cost) {
+        this.cost = cost;
+        return this;
+    }
+
+    /**
+     * Parses the arguments following the command name in a message.
+     *
+     * @param message The raw message text.
+     * @param from    The offset just past the command name.
+     * @return The parsed arguments; check {@link CommandArguments#getError()} before use.
+     */
+    public CommandArguments parseArguments(String message, int from) {
+        return new CommandArguments(message).parse(this, from);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ICommandHandler getHandler() {
+        return handler;
+    }
+
+    public String getUsage() {
+        return usage;
+    }
+
+    public CostClass getCost() {
+        return cost;
+    }
+
+    ArgumentType[] getRequired() {
+        return required;
+    }
+
+    ArgumentType[] getOptional() {
+        return optional;
+    }
+
+    boolean isLenient() {
+        return lenient;
+    }
+}
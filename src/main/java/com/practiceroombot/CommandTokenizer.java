@@ -0,0 +1,189 @@
+package com.practiceroombot;
+
+/**
+ * Tokenizes command messages and parses typed arguments in place.
+ * Tokens are reported as offsets into the original message and parsed directly from its
+ * characters, so no substrings, arrays or exceptions are created while reading a command.
+ */
+public class CommandTokenizer {
+
+    private static final String[] DAY_NAMES = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+    private static final int MIN_DAY_PREFIX = 3; // "mon", "tue", ... are unambiguous
+
+    /**
+     * Finds the end of the token starting at the given offset.
+     *
+     * @param message The raw message text.
+     * @param start   The offset of the first character of the token.
+     * @return The offset just past the last character of the token.
+     */
+    static int tokenEnd(String message, int start) {
+        int end = start;
+        while (end < message.length() && !Character.isWhitespace(message.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Finds the start of the next token at or after the given offset.
+     *
+     * @param message The raw message text.
+     * @param from    The offset to start searching from.
+     * @return The offset of the next token, or the message length if there is none.
+     */
+    static int skipWhitespace(String message, int from) {
+        while (from < message.length() && Character.isWhitespace(message.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Parses a room number token.
+     *
+     * @return 1 or 2, or -1 if the token is not a valid room number.
+     */
+    static int parseRoom(String message, int start, int end) {
+        if (end - start != 1) {
+            return -1;
+        }
+        char c = message.charAt(start);
+        return c == '1' || c == '2' ? c - '0' : -1;
+    }
+
+    /**
+     * Parses a day token, accepting full day names and unambiguous prefixes of at least three letters.
+     * Case and non-letter characters are ignored.
+     *
+     * @return The day index (0 for Monday through 6 for Sunday), or -1 if the token is not a day.
+     */
+    static int parseDay(String message, int start, int end) {
+        for (int day = 0; day < DAY_NAMES.length; day++) {
+            String name = DAY_NAMES[day];
+            int matched = 0;
+            boolean mismatch = false;
+            for (int i = start; i < end && !mismatch; i++) {
+                char c = message.charAt(i);
+                if (!Character.isLetter(c)) {
+                    continue;
+                }
+                mismatch = matched >= name.length() || Character.toLowerCase(c) != name.charAt(matched);
+                matched++;
+            }
+            if (!mismatch && (matched == name.length() || matched >= MIN_DAY_PREFIX)) {
+                return day;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a time token into its half-hour index within the day.
+     * Accepts the same forms as TimeIntegerizer: "8", "8:30", "20:00", "8a", "8pm", "8:30 PM" written without spaces.
+     * Characters other than digits, ':', 'a', 'p' and 'm' are ignored.
+     *
+     * @return The half-hour index (0-47), or -1 if the token is not a valid on-the-half-hour time.
+     */
+    static int parseTime(String message, int start, int end) {
+        int hour = 0;
+        int hourDigits = 0;
+        int minutes = 0;
+        int minuteDigits = -1; // -1 until a ':' has been seen
+        char meridiem = 0;
+        boolean sawM = false;
+
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(message.charAt(i));
+            if (c >= '0' && c <= '9') {
+                if (meridiem != 0) {
+                    return -1;
+                }
+                if (minuteDigits < 0) {
+                    if (++hourDigits > 2) {
+                        return -1;
+                    }
+                    hour = hour * 10 + (c - '0');
+                } else {
+                    if (++minuteDigits > 2) {
+                        return -1;
+                    }
+                    minutes = minutes * 10 + (c - '0');
+                }
+            } else if (c == ':') {
+                if (hourDigits == 0 || minuteDigits >= 0 || meridiem != 0) {
+                    return -1;
+                }
+                minuteDigits = 0;
+            } else if (c == 'a' || c == 'p') {
+                if (meridiem != 0) {
+                    return -1;
+                }
+                meridiem = c;
+            } else if (c == 'm') {
+                if (meridiem == 0 || sawM) {
+                    return -1;
+                }
+                sawM = true;
+            }
+        }
+
+        if (hourDigits == 0 || (minuteDigits >= 0 && minuteDigits != 2) || (minutes != 0 && minutes != 30)) {
+            return -1;
+        }
+
+        if (meridiem != 0) {
+            if (hour < 1 || hour > 12) {
+                return -1;
+            }
+            if (meridiem == 'p' && hour != 12) {
+                hour += 12;
+            } else if (meridiem == 'a' && hour == 12) {
+                hour = 0;
+            }
+        } else if (hour > 24) {
+            return -1;
+        } else if (hour == 24) {
+            hour = 0; // Midnight
+        }
+
+        return hour * 2 + (minutes == 30 ? 1 : 0);
+    }
+
+    /**
+     * Parses a duration token in hours, such as "2" or "1.5".
+     *
+     * @return The duration in hours, or -1 if the token is not a valid non-negative decimal number.
+     */
+    static double parseDuration(String message, int start, int end) {
+        long whole = 0;
+        long fraction = 0;
+        long scale = 1;
+        int digits = 0;
+        boolean sawPoint = false;
+
+        for (int i = start; i < end; i++) {
+            char c = message.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 9) {
+                    return -1;
+                }
+                if (sawPoint) {
+                    fraction = fraction * 10 + (c - '0');
+                    scale *= 10;
+                } else {
+                    whole = whole * 10 + (c - '0');
+                }
+            } else if (c == '.' && !sawPoint) {
+                sawPoint = true;
+            } else {
+                return -1;
+            }
+        }
+
+        if (digits == 0) {
+            return -1;
+        }
+        return whole + (double) fraction / scale;
+    }
+}
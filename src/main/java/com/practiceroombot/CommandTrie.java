@@ -0,0 +1,68 @@
+package com.practiceroombot;
+
+/**
+ * Trie mapping command names to their specs.
+ * Lookups walk the characters of the message directly, case-insensitively,
+ * without extracting or lower-casing the command name first.
+ */
+public class CommandTrie {
+
+    private static final int ALPHABET_SIZE = 26;
+
+    /**
+     * Node of the trie; holds the spec of the command ending at it, if any.
+     */
+    private static class Node {
+        final Node[] children = new Node[ALPHABET_SIZE];
+        CommandSpec spec;
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Adds a command spec to the trie.
+     *
+     * @param spec The spec to add.
+     * @throws IllegalArgumentException if the name is not made of letters or is already defined.
+     */
+    void insert(CommandSpec spec) {
+        String name = spec.getName();
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            int slot = slotOf(name.charAt(i));
+            if (slot < 0) {
+                throw new IllegalArgumentException("Command names may only contain letters: " + name);
+            }
+            if (node.children[slot] == null) {
+                node.children[slot] = new Node();
+            }
+            node = node.children[slot];
+        }
+        if (node.spec != null) {
+            throw new IllegalArgumentException("Command defined twice: " + name);
+        }
+        node.spec = spec;
+    }
+
+    /**
+     * Looks up the command whose name spans the given range of the text.
+     *
+     * @param text  The text containing the command name.
+     * @param start The start offset of the name, inclusive.
+     * @param end   The end offset of the name, exclusive.
+     * @return The spec of the matching command, or null if there is none.
+     */
+    public CommandSpec lookup(CharSequence text, int start, int end) {
+        Node node = root;
+        for (int i = start; i < end && node != null; i++) {
+            int slot = slotOf(text.charAt(i));
+            node = slot < 0 ? null : node.children[slot];
+        }
+        return node == null ? null : node.spec;
+    }
+
+    private static int slotOf(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower >= 'a' && lower <= 'z' ? lower - 'a' : -1;
+    }
+}
@@ -0,0 +1,12 @@
+package com.practiceroombot;
+
+/**
+ * Cost classes of commands used for admission control.
+ * Each class has its own per-user rate limit.
+ */
+public enum CostClass {
+    // Commands that only send text
+    TEXT,
+    // Commands that render and upload a schedule image
+    RENDER
+}
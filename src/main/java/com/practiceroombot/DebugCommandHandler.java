@@ -4,42 +4,78 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 public class DebugCommandHandler implements ICommandHandler {
 
+    // Longest reply Discord accepts in one message
+    private static final int MAX_REPLY_LENGTH = 2000;
+
+    // Admission controller whose limiter decisions are reported by debug code 3
+    private final AdmissionController admissionController;
+
+    public DebugCommandHandler(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
+        response.markInformational(); // Sent after confirmations when the channel is busy
         try {
-            // Check if the command includes the debug code
-            if (parts.length < 2) {
-                throw new IllegalArgumentException("Please provide a debug code.");
-            }
-
-            int debugCode = Integer.parseInt(parts[1]);
+            String debugCode = args.getText(0);
 
             switch (debugCode) {
-                case 1:
+                case "1":
                     // Debug code 1: Output the current time index
                     int currentTimeIndex = RealTimeTracker.getCurrentTimeIndex();
-                    event.getChannel().sendMessage("Current Time Index: " + currentTimeIndex).queue();
+                    response.reply("Current Time Index: " + currentTimeIndex);
                     break;
-                case 2:
+                case "2":
                     // Debug code 2: Output the integerized index of a given time and day
-                    if (parts.length < 4) {
+                    if (args.size() < 3) {
                         throw new IllegalArgumentException("Please provide both day and time for debug code 2.");
                     }
-                    String day = parts[2];
-                    String time = parts[3];
-                    int timeIndex = TimeIntegerizer.integerizeTime(time, day);
-                    event.getChannel().sendMessage("Integerized Time Index for " + day + " " + time + ": " + timeIndex).queue();
+                    String day = args.getText(1);
+                    String time = args.getText(2);
+                    int timeIndex = args.getSlotIndex(1, 2);
+                    response.reply("Integerized Time Index for " + day + " " + time + ": " + timeIndex);
+                    break;
+                case "3":
+                    // Debug code 3: Output the admission control decisions since startup
+                    response.reply("Admission control:\n" + admissionController.describeStats());
+                    break;
+                case "4":
+                    // Debug code 4: Output heap usage, JDA cache sizes, render cache usage and pre-rendering
+                    SchedulePrerenderer prerenderer = ScheduleImageSender.getPrerenderer();
+                    response.reply(HeapReporter.describeHeap() + "\n" + HeapReporter.describeCaches(event.getJDA())
+                            + "\n" + ScheduleImageSender.getRenderCache().describeStats()
+                            + (prerenderer == null ? "" : "\n" + prerenderer.describeStats()));
+                    break;
+                case "metrics":
+                    // Debug code metrics: Output command counts, phase latencies and gauges, for officers only
+                    if (CommandHandlerUtilities.lacksOfficerAccess(event)) {
+                        response.reply(event.getAuthor().getAsMention() + " You do not have permission to view metrics.");
+                        break;
+                    }
+                    response.reply(MetricsRegistry.global().describeSummary(MAX_REPLY_LENGTH));
+                    break;
+                case "jfr":
+                    // Debug code jfr: Dump the continuous flight recording to disk, for officers only
+                    if (CommandHandlerUtilities.lacksOfficerAccess(event)) {
+                        response.reply(event.getAuthor().getAsMention() + " You do not have permission to dump recordings.");
+                        break;
+                    }
+                    FlightRecording recording = FlightRecording.getActive();
+                    if (recording == null) {
+                        response.reply("Flight recording is disabled.");
+                        break;
+                    }
+                    response.reply("Flight recording dumped to " + recording.dump().toAbsolutePath());
                     break;
                 default:
-                    event.getChannel().sendMessage("Invalid debug code.").queue();
+                    response.reply("Invalid debug code.");
                     break;
             }
-        } catch (NumberFormatException e) {
-            event.getChannel().sendMessage("Debug code must be a valid integer.").queue();
         } catch (IllegalArgumentException e) {
-            event.getChannel().sendMessage(e.getMessage()).queue();
+            response.reply(e.getMessage());
         } catch (Exception e) {
-            event.getChannel().sendMessage("An unexpected error occurred: " + e.getMessage()).queue();
+            response.reply("An unexpected error occurred: " + e.getMessage());
         }
     }
 }
@@ -1,50 +1,139 @@
 package com.practiceroombot;
 
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import net.dv8tion.jda.api.utils.FileUpload;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
  * Handler for the "display" command in the Discord bot.
  * This class implements ICommandHandler and is responsible for processing the
- * display command, which involves visualizing and sending the schedule image.
+ * display command, which involves visualizing and sending the schedule image,
+ * or a compact text view of the week or a single day.
+ * The command is admitted as a text command, since the user's default mode is only known here;
+ * the image branch then charges the user's render budget.
  */
 public class DisplayCommandHandler implements ICommandHandler {
 
+    static final String USAGE = "!display [text|image] [day] [6pm-11pm] [room1|room2] [0.5x-2x]";
+
+    // Per-user choice between image and text when no mode is given
+    private final DisplayPreferences preferences = new DisplayPreferences();
+
+    private final AdmissionController admissionController;
+
+    /**
+     * Creates the handler.
+     *
+     * @param admissionController The admission controller charged for rendered images.
+     */
+    public DisplayCommandHandler(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
     /**
-     * Handles the "display" command, generating and sending a schedule image.
-     * Converts a BufferedImage of the schedule to a byte array and sends it as an attachment.
+     * Handles the "display" command, generating and sending a schedule image or text view.
+     * Supported forms are "!display [text|image] [day] [window] [room] [scale]" and "!display default <text|image>".
      *
      * @param event    The message event that triggered this command
-     * @param parts    Array of strings representing the parts of the command
+     * @param args     The display mode, day or default setting
+     * @param response The response the schedule is added to
      * @throws IOException If an error occurs during image processing or sending
      */
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) throws IOException {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) throws IOException {
         String userMention = event.getAuthor().getAsMention(); // Get the mention string for user notification
+        long userId = event.getAuthor().getIdLong();
+
+        if (args.size() > 0 && args.isWord(0, "default")) {
+            DisplayPreferences.Mode mode = parseMode(args, 1);
+            if (mode == null) {
+                response.reply(userMention + " Usage: !display default <text|image>");
+                return;
+            }
+            preferences.setMode(userId, mode);
+            response.reply(userMention + " Your schedule will now be displayed as " + mode.name().toLowerCase() + " by default.");
+            return;
+        }
+
+        DisplayPreferences.Mode mode = preferences.getMode(userId);
+        ScheduleView view = ScheduleView.FULL;
+        for (int i = 0; i < args.size(); i++) {
+            DisplayPreferences.Mode chosen = parseMode(args, i);
+            if (chosen != null) {
+                mode = chosen;
+                continue;
+            }
+            try {
+                view = view.withOption(args.getText(i));
+            } catch (IllegalArgumentException e) {
+                response.reply(userMention + " Failed: " + e.getMessage());
+                return;
+            }
+            if (view == null) {
+                response.reply(userMention + " Usage: " + USAGE);
+                return;
+            }
+        }
+
+        String userName = event.getAuthor().getName();
+        if (mode == DisplayPreferences.Mode.TEXT) {
+            // The text view is already compact; only the day option applies to it
+            String text = view.getDay() < 0 ? TextScheduleRenderer.renderWeek(userName) : TextScheduleRenderer.renderDay(view.getDay(), userName);
+            response.reply(userMention + " Here is the current schedule:\n" + text);
+            return;
+        }
+
+        switch (admissionController.charge(userId, CostClass.RENDER)) {
+            case RATE_LIMITED -> {
+                response.reply(userMention + " You're requesting images too quickly, please retry shortly or use !display text.");
+                return;
+            }
+            case BUSY -> {
+                response.reply(userMention + " The bot is busy right now, please retry shortly.");
+                return;
+            }
+            case DROPPED -> {
+                return;
+            }
+            default -> {
+                // Charged
+            }
+        }
+
         try {
-            // Generate an image representation of the schedule
-            BufferedImage scheduleImage = ScheduleVisualizer.generateScheduleImage(event.getAuthor().getName());
-
-            // Convert the BufferedImage to an InputStream or directly to a byte array
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(scheduleImage, "png", outputStream);
-            byte[] imageBytes = outputStream.toByteArray();
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(imageBytes);
-
-            // Send the image as a file attachment in the Discord channel
-            event.getChannel().sendFiles(FileUpload.fromData(inputStream, "schedule.png")).queue(message -> {
-                event.getChannel().sendMessage(userMention + " Here is the current schedule:").queue();
-            });
+            // Read the version first, so a change made during rendering is never hidden behind this image
+            long version = Schedule.getVersion();
+
+            // Render the schedule, or reuse the image if nothing changed since it was last displayed
+            byte[] imageBytes = ScheduleImageSender.renderSchedule(userName, view);
+            if (view.isFull()) {
+                ScheduleImageSender.noteViewer(userName); // Pre-render this user's image after future changes
+            }
+
+            // Send the image as a file attachment together with the reply
+            response.reply(userMention + " Here is the current schedule:");
+            String imageView = view.isFull() ? userName : userName + " " + view.getKey();
+            response.attachScheduleImage("schedule.png", imageBytes, imageView, version);
         } catch (IOException e) {
-            event.getChannel().sendMessage(userMention + " An error occurred while processing the schedule image.").queue();
+            response.reply(userMention + " An error occurred while processing the schedule image.");
             throw e; // Re-throw the exception after handling
         }
     }
-}
 
+    /**
+     * Parses a display mode option.
+     *
+     * @param args     The command arguments.
+     * @param position The position of the option.
+     * @return The mode, or null if the argument is missing or not a mode.
+     */
+    private static DisplayPreferences.Mode parseMode(CommandArguments args, int position) {
+        if (args.isWord(position, "text")) {
+            return DisplayPreferences.Mode.TEXT;
+        }
+        if (args.isWord(position, "image")) {
+            return DisplayPreferences.Mode.IMAGE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.practiceroombot;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers how each user prefers the schedule to be displayed.
+ * Like the schedule itself, preferences are kept in memory only.
+ */
+public class DisplayPreferences {
+
+    /**
+     * How the schedule is displayed.
+     */
+    public enum Mode {
+        IMAGE,
+        TEXT
+    }
+
+    // Preferred mode by user ID; users without an entry get images
+    private final ConcurrentHashMap<Long, Mode> modes = new ConcurrentHashMap<>();
+
+    /**
+     * @param userId The ID of the user.
+     * @return The user's preferred mode, IMAGE if none was set.
+     */
+    public Mode getMode(long userId) {
+        return modes.getOrDefault(userId, Mode.IMAGE);
+    }
+
+    /**
+     * Sets a user's preferred mode.
+     *
+     * @param userId The ID of the user.
+     * @param mode   The preferred mode.
+     */
+    public void setMode(long userId, Mode mode) {
+        if (mode == Mode.IMAGE) {
+            modes.remove(userId);
+        } else {
+            modes.put(userId, mode);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.practiceroombot;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+/**
+ * Keeps a continuous Java Flight Recorder recording of the last stretch of the bot's run, so a
+ * latency spike can be investigated after the fact. The recording uses the JDK's low-overhead
+ * default settings, which include GC pauses and thread parking, plus the bot's own command, schedule
+ * mutation, render and upload events. Monitor waits are recorded from 10 ms on to show contention
+ * on the schedule lock. Officers dump it to disk with !debug jfr; open the file in JDK Mission Control.
+ */
+public class FlightRecording {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // The recording dumped by !debug jfr, or null if flight recording is disabled
+    private static volatile FlightRecording active;
+
+    private final Recording recording;
+    private final Path dumpDirectory;
+
+    /**
+     * Creates a continuous recording. The recording does not start until start is called.
+     *
+     * @param maxAge        How far back the recording reaches.
+     * @param maxSizeBytes  The most disk space the recording keeps, whichever limit is reached first.
+     * @param dumpDirectory The directory dumps are written to.
+     * @throws IOException    If the JDK's default settings cannot be read.
+     * @throws ParseException If the JDK's default settings cannot be parsed.
+     */
+    public FlightRecording(Duration maxAge, long maxSizeBytes, Path dumpDirectory) throws IOException, ParseException {
+        if (maxAge.isNegative() || maxAge.isZero() || maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("The flight recording age and size limits must be positive.");
+        }
+        this.dumpDirectory = dumpDirectory;
+        this.recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("practiceroombot");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+
+        recording.enable(CommandDispatchEvent.class).withThreshold(Duration.ZERO);
+        recording.enable(ScheduleMutationEvent.class).withThreshold(Duration.ZERO);
+        recording.enable(ScheduleRenderEvent.class).withThreshold(Duration.ZERO);
+        recording.enable(ImageUploadEvent.class).withThreshold(Duration.ZERO);
+        recording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ofMillis(10)).withStackTrace();
+    }
+
+    /**
+     * Creates and starts a recording from configuration properties, reading jfr.enabled (default true),
+     * jfr.maxAgeMinutes (default 60), jfr.maxSizeMegabytes (default 64) and jfr.dumpDirectory
+     * (default "recordings").
+     *
+     * @param properties The bot's configuration properties.
+     * @return The started recording, or null if flight recording is disabled.
+     * @throws IOException    If the JDK's default settings cannot be read.
+     * @throws ParseException If the JDK's default settings cannot be parsed.
+     */
+    public static FlightRecording fromProperties(Properties properties) throws IOException, ParseException {
+        if (!Boolean.parseBoolean(properties.getProperty("jfr.enabled", "true"))) {
+            return null;
+        }
+        return new FlightRecording(
+                Duration.ofMinutes(Long.parseLong(properties.getProperty("jfr.maxAgeMinutes", "60"))),
+                Long.parseLong(properties.getProperty("jfr.maxSizeMegabytes", "64")) * 1024L * 1024L,
+                Paths.get(properties.getProperty("jfr.dumpDirectory", "recordings"))).start();
+    }
+
+    /**
+     * Sets the recording dumped by !debug jfr.
+     *
+     * @param recording The recording, or null if flight recording is disabled.
+     */
+    public static void setActive(FlightRecording recording) {
+        active = recording;
+    }
+
+    /**
+     * @return The recording dumped by !debug jfr, or null if flight recording is disabled.
+     */
+    public static FlightRecording getActive() {
+        return active;
+    }
+
+    /**
+     * Starts recording.
+     *
+     * @return This recording.
+     */
+    public FlightRecording start() {
+        recording.start();
+        logger.info("Flight recording started, keeping the last {} minutes", recording.getMaxAge().toMinutes());
+        return this;
+    }
+
+    /**
+     * Stops recording and discards the recorded data.
+     */
+    public void close() {
+        recording.close();
+    }
+
+    /**
+     * Writes what the recording currently holds to a new file in the dump directory. Recording continues.
+     *
+     * @return The path of the written file.
+     * @throws IOException If the file cannot be written.
+     */
+    public Path dump() throws IOException {
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve("practiceroombot-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        recording.dump(file);
+        logger.info("Flight recording dumped to {}", file.toAbsolutePath());
+        return file;
+    }
+}
@@ -0,0 +1,62 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.JDA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports heap usage and the size of JDA's entity caches.
+ * Used to size the heap when many bot instances share a small machine.
+ */
+public class HeapReporter {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(HeapReporter.class);
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    /**
+     * Describes the current heap usage.
+     *
+     * @return The used, committed and maximum heap sizes in megabytes.
+     */
+    public static String describeHeap() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return "Heap: " + heap.getUsed() / MEGABYTE + " MB used, " + heap.getCommitted() / MEGABYTE
+                + " MB committed, " + (heap.getMax() < 0 ? "no" : heap.getMax() / MEGABYTE + " MB") + " max";
+    }
+
+    /**
+     * Describes the number of entities held in JDA's caches.
+     *
+     * @param jda The JDA instance whose caches are inspected.
+     * @return The cached guild, user, member and channel counts.
+     */
+    public static String describeCaches(JDA jda) {
+        long members = jda.getGuildCache().stream().mapToLong(guild -> guild.getMemberCache().size()).sum();
+        return "Cache: " + jda.getGuildCache().size() + " guilds, " + jda.getUserCache().size() + " users, "
+                + members + " members, " + jda.getTextChannelCache().size() + " text channels";
+    }
+
+    /**
+     * Starts logging heap usage and cache sizes periodically.
+     *
+     * @param jda             The JDA instance whose caches are reported.
+     * @param intervalMinutes The reporting interval in minutes; nothing is scheduled if not positive.
+     */
+    public static void start(JDA jda, long intervalMinutes) {
+        if (intervalMinutes <= 0) {
+            return;
+        }
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(CommandExecutor.daemonThreads("heap-reporter"));
+        scheduler.scheduleAtFixedRate(() -> logger.info("{}; {}", describeHeap(), describeCaches(jda)),
+                0, intervalMinutes, TimeUnit.MINUTES);
+    }
+}
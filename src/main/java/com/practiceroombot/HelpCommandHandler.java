@@ -14,16 +14,19 @@ public class HelpCommandHandler implements ICommandHandler {
      * This method constructs a help message and sends it to the Discord channel.
      *
      * @param event    The message event that triggered this command
-     * @param parts    Array of strings representing the parts of the command (not used in this handler)
+     * @param args     The arguments of the command (not used in this handler)
+     * @param response The response the help message is added to
      */
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
+        response.markInformational(); // Sent after confirmations when the channel is busy
         // Construct the help message with a list of available commands
         String helpMessage = """
                 Here are the available commands:
                 !reserve <roomNumber> <day> <startTime> <duration>: To reserve a room.
                 !cancel <roomNumber> <day> <startTime>: To cancel a reservation.
-                !display: To display the schedule.
+                !display [text|image] [day] [6pm-11pm] [room1|room2] [0.5x-2x]: To display the schedule, as an image or as text, optionally cropped to a day, a time window or one room, and scaled.
+                !display default <text|image>: To choose how !display shows the schedule by default.
                 !whohas <roomNumber> <day> <time>: To display who is using a room at a given time.
                 !raid <day> <startTime> <duration>: To mark equipment as removed (Officers only).
                 !unraid <day> <startTime>: To remove raid mark (Officers only).
@@ -32,6 +35,6 @@ public class HelpCommandHandler implements ICommandHandler {
                 !phelp: To display this message.""";
 
         // Send the help message to the Discord channel
-        event.getChannel().sendMessage(helpMessage).queue();
+        response.reply(helpMessage);
     }
 }
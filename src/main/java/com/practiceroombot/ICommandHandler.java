@@ -12,11 +12,13 @@ public interface ICommandHandler {
 
     /**
      * Handles a command received in a Discord message.
-     * This method is called when a specific command associated with the implementing handler is received.
+     * This method is called when a specific command associated with the implementing handler is received,
+     * after its arguments have been validated against the command grammar.
      *
      * @param event    The MessageReceivedEvent representing the received Discord message
-     * @param parts    The parts of the command, split by spaces
+     * @param args     The typed arguments of the command, excluding the command name
+     * @param response The response collecting the text and attachments to send back
      * @throws IOException If an input/output exception occurs during command handling
      */
-    void handleCommand(MessageReceivedEvent event, String[] parts) throws IOException;
+    void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) throws IOException;
 }
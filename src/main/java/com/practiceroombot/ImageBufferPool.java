@@ -0,0 +1,51 @@
+package com.practiceroombot;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of equally sized TYPE_INT_RGB images reused across renders.
+ * A schedule image is about 3 MB of pixels; reusing a few of them keeps rendering from
+ * allocating a new one per command. Images are not cleared on release, so users of the pool
+ * must overwrite every pixel.
+ */
+public class ImageBufferPool {
+
+    private final int width;
+    private final int height;
+    private final ArrayBlockingQueue<BufferedImage> idle;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param width    The width of the pooled images.
+     * @param height   The height of the pooled images.
+     * @param capacity The maximum number of idle images kept.
+     */
+    public ImageBufferPool(int width, int height, int capacity) {
+        this.width = width;
+        this.height = height;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Takes an idle image from the pool, or creates one if none is idle.
+     *
+     * @return An image with undefined content.
+     */
+    public BufferedImage acquire() {
+        BufferedImage image = idle.poll();
+        return image != null ? image : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Returns an image to the pool. It is dropped if the pool is full or the image does not fit the pool.
+     *
+     * @param image The image, which must not be used by the caller afterwards.
+     */
+    public void release(BufferedImage image) {
+        if (image.getWidth() == width && image.getHeight() == height && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            idle.offer(image);
+        }
+    }
+}
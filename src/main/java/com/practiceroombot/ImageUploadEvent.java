@@ -0,0 +1,36 @@
+package com.practiceroombot;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning one upload of images to Discord.
+ */
+@Name("practiceroombot.ImageUpload")
+@Label("Image Upload")
+@Category({"Practice Room Bot", "Outbound"})
+@Description("A message with image attachments sent to Discord, or a live board image edited in place")
+public class ImageUploadEvent extends Event {
+
+    @Label("Channel ID")
+    long channelId;
+
+    @Label("Kind")
+    @Description("message for a posted message, liveBoard for a live board image edited in place")
+    String kind;
+
+    @Label("Files")
+    int files;
+
+    @Label("Size")
+    @DataAmount(DataAmount.BYTES)
+    long bytes;
+
+    @Label("Outcome")
+    @Description("sent, rate_limited or failed")
+    String outcome;
+}
@@ -0,0 +1,74 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.utils.FileUpload;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends outbound messages through JDA.
+ * Requests are not queued by JDA's own rate limiter; a rate limited request is reported back
+ * to the OutboundDispatcher, which decides what to send while the bucket refills.
+ */
+public class JdaOutboundTransport implements OutboundTransport {
+
+    @Override
+    public RateLimit send(OutboundMessage message) throws Exception {
+        try {
+            message.getResult().complete(execute(message));
+        } catch (net.dv8tion.jda.api.exceptions.RateLimitedException e) {
+            throw new RateLimitedException(e.getRetryAfter());
+        }
+
+        // JDA does not expose the bucket headers; the dispatcher falls back to its local model
+        return null;
+    }
+
+    /**
+     * Makes the message's request without letting JDA queue it behind a rate limit.
+     *
+     * @param message The message to send.
+     * @return The ID of the sent, edited, pinned or found message, or 0 if no pinned message was found.
+     * @throws net.dv8tion.jda.api.exceptions.RateLimitedException If the request was rate limited.
+     */
+    private static long execute(OutboundMessage message) throws net.dv8tion.jda.api.exceptions.RateLimitedException {
+        MessageChannel channel = message.getChannel();
+        switch (message.getKind()) {
+            case EDIT -> {
+                channel.editMessageAttachmentsById(message.getTargetMessageId(), toFileUploads(message)).complete(false);
+                return message.getTargetMessageId();
+            }
+            case PIN -> {
+                channel.pinMessageById(message.getTargetMessageId()).complete(false);
+                return message.getTargetMessageId();
+            }
+            case FIND_PINNED -> {
+                long selfId = channel.getJDA().getSelfUser().getIdLong();
+                for (Message pinned : channel.retrievePinnedMessages().complete(false)) {
+                    if (pinned.getAuthor().getIdLong() == selfId && message.getContent().equals(pinned.getContentRaw())) {
+                        return pinned.getIdLong();
+                    }
+                }
+                return 0;
+            }
+            default -> {
+                MessageCreateBuilder builder = new MessageCreateBuilder().setFiles(toFileUploads(message));
+                if (!message.getContent().isEmpty()) {
+                    builder.setContent(message.getContent());
+                }
+                return channel.sendMessage(builder.build()).complete(false).getIdLong();
+            }
+        }
+    }
+
+    private static List<FileUpload> toFileUploads(OutboundMessage message) {
+        List<FileUpload> files = new ArrayList<>();
+        for (OutboundMessage.Attachment attachment : message.getAttachments()) {
+            files.add(attachment.toFileUpload());
+        }
+        return files;
+    }
+}
@@ -0,0 +1,183 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one pinned schedule message per channel and edits its image in place.
+ * In live board mode, mutation commands refresh the board instead of posting a new image,
+ * and highlighted per-user views are only produced on demand by the display command.
+ * The board is also checked periodically, so changes made outside a command, such as the
+ * weekly reset, show up without anyone posting. Every request the board makes goes through the
+ * OutboundDispatcher, so board updates share each channel's rate limit bucket with the replies.
+ */
+public class LiveScheduleBoard {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(LiveScheduleBoard.class);
+
+    // Content of the pinned message, used to find it again after a restart
+    static final String BOARD_TITLE = "Live schedule (updated automatically)";
+
+    // How long an update waits for one of its requests before giving up until the next check
+    private static final long REQUEST_TIMEOUT_SECONDS = 60;
+
+    /**
+     * The pinned message of one channel and the schedule version it shows.
+     */
+    private static final class Board {
+        final MessageChannel channel;
+        long messageId;
+        long shownVersion = -1;
+
+        Board(MessageChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final OutboundDispatcher dispatcher;
+
+    // Boards by channel ID
+    private final ConcurrentHashMap<Long, Board> boards = new ConcurrentHashMap<>();
+
+    // Single thread, so updates of a board never overlap
+    private final ScheduledExecutorService updater =
+            Executors.newSingleThreadScheduledExecutor(CommandExecutor.daemonThreads("live-board"));
+
+    /**
+     * Creates a live board. Periodic checks are not scheduled.
+     *
+     * @param dispatcher The dispatcher the board's requests are sent through.
+     */
+    LiveScheduleBoard(OutboundDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Creates a live board if enabled by schedule.liveBoard, checking for missed changes every
+     * schedule.liveBoard.checkSeconds seconds (default 60).
+     *
+     * @param properties The bot's configuration properties.
+     * @param dispatcher The dispatcher the board's requests are sent through.
+     * @return The live board, or null if live board mode is disabled.
+     */
+    public static LiveScheduleBoard fromProperties(Properties properties, OutboundDispatcher dispatcher) {
+        if (!Boolean.parseBoolean(properties.getProperty("schedule.liveBoard", "false"))) {
+            return null;
+        }
+
+        LiveScheduleBoard board = new LiveScheduleBoard(dispatcher);
+        long checkSeconds = Long.parseLong(properties.getProperty("schedule.liveBoard.checkSeconds", "60"));
+        if (checkSeconds > 0) {
+            board.updater.scheduleWithFixedDelay(board::refreshAll, checkSeconds, checkSeconds, TimeUnit.SECONDS);
+        }
+        return board;
+    }
+
+    /**
+     * Brings the board of a channel up to date with the schedule, creating it if needed.
+     * Returns immediately; the update runs on the board's own thread.
+     *
+     * @param channel The channel whose board is refreshed.
+     */
+    public void refresh(MessageChannel channel) {
+        Board board = boards.computeIfAbsent(channel.getIdLong(), id -> new Board(channel));
+        updater.execute(() -> update(board));
+    }
+
+    private void refreshAll() {
+        for (Board board : boards.values()) {
+            update(board);
+        }
+    }
+
+    /**
+     * Brings the board of a channel up to date on the calling thread.
+     *
+     * @param channel The channel whose board is updated.
+     */
+    void update(MessageChannel channel) {
+        update(boards.computeIfAbsent(channel.getIdLong(), id -> new Board(channel)));
+    }
+
+    /**
+     * Re-renders and uploads the board's image if the schedule changed since it was last shown.
+     *
+     * @param board The board to update.
+     */
+    private void update(Board board) {
+        long version = Schedule.getVersion();
+        if (board.shownVersion == version) {
+            return;
+        }
+
+        try {
+            List<OutboundMessage.Attachment> image = List.of(OutboundMessage.Attachment.of("schedule.png",
+                    ScheduleImageSender.renderSchedule(null)));
+            if (board.messageId == 0) {
+                board.messageId = request(OutboundMessage.findPinned(board.channel, BOARD_TITLE));
+            }
+
+            if (board.messageId == 0) {
+                board.messageId = createBoard(board.channel, image);
+            } else {
+                try {
+                    request(OutboundMessage.edit(board.channel, board.messageId, image));
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof ErrorResponseException error) || error.getErrorResponse() != ErrorResponse.UNKNOWN_MESSAGE) {
+                        throw e;
+                    }
+                    // The pinned message was deleted; post a new one
+                    board.messageId = createBoard(board.channel, image);
+                }
+            }
+            board.shownVersion = version;
+        } catch (Exception e) {
+            logger.warn("Failed to update the live schedule board in channel {}", board.channel.getId(), e);
+        }
+    }
+
+    /**
+     * Posts and pins a new board.
+     *
+     * @param channel The channel to post in.
+     * @param image   The schedule image.
+     * @return The ID of the new board.
+     * @throws Exception If the board could not be posted.
+     */
+    private long createBoard(MessageChannel channel, List<OutboundMessage.Attachment> image) throws Exception {
+        long messageId = request(new OutboundMessage(channel, channel.getIdLong(), OutboundPriority.IMAGE, BOARD_TITLE, image));
+        OutboundMessage pin = OutboundMessage.pin(channel, messageId);
+        dispatcher.enqueue(pin);
+        pin.getResult().whenComplete((id, error) -> {
+            if (error != null) {
+                logger.warn("Failed to pin the live schedule board in channel {}", channel.getId(), error);
+            }
+        });
+        return messageId;
+    }
+
+    /**
+     * Queues a request with the dispatcher and waits for its result.
+     *
+     * @param message The request.
+     * @return The ID of the message the request produced or found.
+     * @throws ExecutionException If the request failed.
+     * @throws Exception          If the wait was interrupted or timed out.
+     */
+    private long request(OutboundMessage message) throws Exception {
+        dispatcher.enqueue(message);
+        return message.getResult().get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,305 @@
+package com.practiceroombot;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the bot's runtime metrics: counters, latency histograms and gauges, each identified by
+ * a name and a set of labels. Recording is lock-free, so handlers can count and time their work on
+ * every command. The metrics are exposed in the Prometheus text format by the MetricsServer and
+ * summarized for officers by !debug metrics.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    // Quantiles reported for every histogram
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * The phases a command goes through, each timed in the bot_phase_seconds histogram.
+     */
+    public enum Phase {
+        PARSE, AUTHORIZATION, MUTATION, RENDER, ENCODE, SEND;
+
+        private final LatencyHistogram histogram = GLOBAL.histogram("bot_phase_seconds", "phase", name().toLowerCase());
+
+        /**
+         * Records the duration of one pass through this phase.
+         *
+         * @param nanos The duration in nanoseconds.
+         */
+        public void record(long nanos) {
+            histogram.record(nanos);
+        }
+
+        /**
+         * Records the time elapsed since a start time taken with System.nanoTime().
+         *
+         * @param startNanos The start time.
+         */
+        public void recordSince(long startNanos) {
+            histogram.recordSince(startNanos);
+        }
+    }
+
+    private enum Type {
+        COUNTER("counter"), HISTOGRAM("summary"), GAUGE("gauge");
+
+        private final String exposition;
+
+        Type(String exposition) {
+            this.exposition = exposition;
+        }
+    }
+
+    /**
+     * All metrics sharing a name, keyed by their rendered labels.
+     */
+    private record Family(Type type, ConcurrentSkipListMap<String, Object> metrics) {
+    }
+
+    // Families by name, sorted so the scrape output is stable
+    private final ConcurrentSkipListMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * @return The registry shared by the whole bot.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the counter with a name and labels, creating it on first use.
+     *
+     * @param name   The metric name, ending in _total by convention.
+     * @param labels Alternating label names and values.
+     * @return The counter.
+     * @throws IllegalArgumentException If the labels are not in pairs or the name is used by another type of metric.
+     */
+    public LongAdder counter(String name, String... labels) {
+        return (LongAdder) family(name, Type.COUNTER).metrics.computeIfAbsent(labelText(labels), key -> new LongAdder());
+    }
+
+    /**
+     * Registers a counter kept by another component and read whenever the metrics are scraped,
+     * replacing any counter with the same name and labels.
+     *
+     * @param name   The metric name, ending in _total by convention.
+     * @param value  Supplies the current count, which must never decrease.
+     * @param labels Alternating label names and values.
+     * @throws IllegalArgumentException If the labels are not in pairs or the name is used by another type of metric.
+     */
+    public void counter(String name, LongSupplier value, String... labels) {
+        family(name, Type.COUNTER).metrics.put(labelText(labels), value);
+    }
+
+    /**
+     * Returns the latency histogram with a name and labels, creating it on first use.
+     *
+     * @param name   The metric name, ending in _seconds by convention.
+     * @param labels Alternating label names and values.
+     * @return The histogram.
+     * @throws IllegalArgumentException If the labels are not in pairs or the name is used by another type of metric.
+     */
+    public LatencyHistogram histogram(String name, String... labels) {
+        return (LatencyHistogram) family(name, Type.HISTOGRAM).metrics.computeIfAbsent(labelText(labels), key -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a gauge read whenever the metrics are scraped, replacing any gauge with the same name and labels.
+     *
+     * @param name   The metric name.
+     * @param value  Supplies the current value.
+     * @param labels Alternating label names and values.
+     * @throws IllegalArgumentException If the labels are not in pairs or the name is used by another type of metric.
+     */
+    public void gauge(String name, DoubleSupplier value, String... labels) {
+        family(name, Type.GAUGE).metrics.put(labelText(labels), value);
+    }
+
+    private Family family(String name, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(type, new ConcurrentSkipListMap<>()));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type.exposition + ".");
+        }
+        return family;
+    }
+
+    /**
+     * Renders labels as they appear in the exposition format, for example {command="reserve"}.
+     */
+    private static String labelText(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                switch (ch) {
+                    case '\\' -> text.append("\\\\");
+                    case '"' -> text.append("\\\"");
+                    case '\n' -> text.append("\\n");
+                    default -> text.append(ch);
+                }
+            }
+            text.append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    /**
+     * Adds a label to rendered labels.
+     */
+    private static String withLabel(String labelText, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        return labelText.isEmpty() ? "{" + label + "}" : labelText.substring(0, labelText.length() - 1) + "," + label + "}";
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format (version 0.0.4).
+     * Histograms are exposed as summaries in seconds with the 0.5, 0.9, 0.99 and 0.999 quantiles.
+     *
+     * @return The exposition text.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.append("# TYPE ").append(name).append(' ').append(family.type.exposition).append('\n');
+            for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+                String labels = metric.getKey();
+                switch (family.type) {
+                    case COUNTER -> out.append(name).append(labels).append(' ')
+                            .append(count(metric.getValue())).append('\n');
+                    case GAUGE -> out.append(name).append(labels).append(' ')
+                            .append(((DoubleSupplier) metric.getValue()).getAsDouble()).append('\n');
+                    case HISTOGRAM -> {
+                        LatencyHistogram histogram = (LatencyHistogram) metric.getValue();
+                        for (double quantile : QUANTILES) {
+                            out.append(name).append(withLabel(labels, "quantile", String.valueOf(quantile))).append(' ')
+                                    .append(seconds(histogram.valueAtPercentile(quantile * 100))).append('\n');
+                        }
+                        out.append(name).append("_sum").append(labels).append(' ').append(seconds(histogram.getSum())).append('\n');
+                        out.append(name).append("_count").append(labels).append(' ').append(histogram.getCount()).append('\n');
+                    }
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Summarizes the metrics for a Discord message: command counts, then the median and 99th percentile
+     * of every histogram that has recorded something, and the gauges, in name order.
+     *
+     * @param maxLength The length the summary must fit in; whole lines beyond it are left out.
+     * @return The summary.
+     */
+    public String describeSummary(int maxLength) {
+        StringBuilder out = new StringBuilder("Metrics:\n");
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+                String label = entry.getKey() + metric.getKey();
+                switch (family.type) {
+                    case COUNTER -> {
+                        long count = count(metric.getValue());
+                        if (count > 0) {
+                            out.append(label).append(": ").append(count).append('\n');
+                        }
+                    }
+                    case GAUGE -> out.append(label).append(": ")
+                            .append(String.format("%.3f", ((DoubleSupplier) metric.getValue()).getAsDouble())).append('\n');
+                    case HISTOGRAM -> {
+                        LatencyHistogram histogram = (LatencyHistogram) metric.getValue();
+                        if (histogram.getCount() > 0) {
+                            out.append(label).append(": n=").append(histogram.getCount())
+                                    .append(" p50=").append(millis(histogram.valueAtPercentile(50)))
+                                    .append(" p99=").append(millis(histogram.valueAtPercentile(99))).append('\n');
+                        }
+                    }
+                }
+            }
+        }
+        if (out.length() > maxLength) {
+            String omitted = "...";
+            out.setLength(out.lastIndexOf("\n", maxLength - omitted.length() - 1) + 1);
+            out.append(omitted);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Registers the metrics describing the bot's state: schedule occupancy, cache hits and misses as
+     * counters with their hit ratios, the outbound queue, admission decisions and heap use. Caches are
+     * read through their current holders on every scrape, so replacing a cache keeps the metrics working.
+     *
+     * @param dispatcher          The dispatcher sending the bot's messages.
+     * @param admissionController The admission controller deciding which commands may run.
+     */
+    public void registerBotMetrics(OutboundDispatcher dispatcher, AdmissionController admissionController) {
+        gauge("bot_schedule_reserved_slots", () -> Schedule.countReservedSlots(1), "room", "1");
+        gauge("bot_schedule_reserved_slots", () -> Schedule.countReservedSlots(2), "room", "2");
+        gauge("bot_schedule_recording_slots", Schedule::countRecordingSlots);
+        gauge("bot_schedule_raid_slots", Schedule::countRaidSlots);
+
+        counter("bot_cache_hits_total", () -> ScheduleImageSender.getRenderCache().getHits(), "cache", "render");
+        counter("bot_cache_misses_total", () -> ScheduleImageSender.getRenderCache().getMisses(), "cache", "render");
+        gauge("bot_cache_hit_ratio", () -> ratio(ScheduleImageSender.getRenderCache().getHits(),
+                ScheduleImageSender.getRenderCache().getMisses()), "cache", "render");
+        counter("bot_cache_hits_total", () -> CommandHandlerUtilities.getPermissionCache().getHits(), "cache", "permission");
+        counter("bot_cache_misses_total", () -> CommandHandlerUtilities.getPermissionCache().getMisses(), "cache", "permission");
+        gauge("bot_cache_hit_ratio", () -> ratio(CommandHandlerUtilities.getPermissionCache().getHits(),
+                CommandHandlerUtilities.getPermissionCache().getMisses()), "cache", "permission");
+
+        gauge("bot_outbound_queued", dispatcher::getQueuedCount);
+        counter("bot_outbound_sent_total", dispatcher::getSentCount);
+        counter("bot_outbound_superseded_total", dispatcher::getSupersededCount);
+
+        for (CostClass cost : CostClass.values()) {
+            for (AdmissionController.Decision decision : AdmissionController.Decision.values()) {
+                counter("bot_admission_decisions_total", () -> admissionController.getDecisionCount(cost, decision),
+                        "cost", cost.name().toLowerCase(), "decision", decision.name().toLowerCase());
+            }
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("bot_heap_used_bytes", () -> memory.getHeapMemoryUsage().getUsed());
+    }
+
+    /**
+     * Reads a counter, whether it is counted here or supplied by its owner.
+     */
+    private static long count(Object counter) {
+        return counter instanceof LongAdder adder ? adder.sum() : ((LongSupplier) counter).getAsLong();
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,102 @@
+package com.practiceroombot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics registry over HTTP at /metrics in the Prometheus text format, so a scraper can
+ * collect the bot's latencies and counters. Binds to the loopback address unless configured otherwise.
+ */
+public class MetricsServer {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final MetricsRegistry registry;
+
+    /**
+     * Creates a metrics server. The server does not accept connections until started.
+     *
+     * @param bindAddress The address to listen on.
+     * @param port        The port to listen on, or 0 for any free port.
+     * @param registry    The registry whose metrics are served.
+     * @throws IOException If the port cannot be bound.
+     */
+    public MetricsServer(String bindAddress, int port, MetricsRegistry registry) throws IOException {
+        this.registry = registry;
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        this.server.createContext("/metrics", this::handle);
+        this.server.setExecutor(Executors.newSingleThreadExecutor(CommandExecutor.daemonThreads("metrics-http")));
+    }
+
+    /**
+     * Creates and starts a metrics server from configuration properties, reading the port from
+     * metrics.port (default 0, which disables the server) and the address from metrics.bindAddress
+     * (default 127.0.0.1).
+     *
+     * @param properties The bot's configuration properties.
+     * @return The started server, or null if the server is disabled.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static MetricsServer fromProperties(Properties properties) throws IOException {
+        int port = Integer.parseInt(properties.getProperty("metrics.port", "0"));
+        if (port == 0) {
+            return null;
+        }
+        return new MetricsServer(properties.getProperty("metrics.bindAddress", "127.0.0.1"), port, MetricsRegistry.global()).start();
+    }
+
+    /**
+     * Starts accepting scrapes.
+     *
+     * @return This server.
+     */
+    public MetricsServer start() {
+        server.start();
+        logger.info("Serving metrics on http://{}:{}/metrics", server.getAddress().getHostString(), getPort());
+        return this;
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (Exception e) {
+            logger.error("Error while serving metrics: ", e);
+        }
+    }
+}
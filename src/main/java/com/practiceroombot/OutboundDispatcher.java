@@ -0,0 +1,371 @@
+package com.practiceroombot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends outbound messages in priority order while respecting Discord's rate limits.
+ * Each channel's message route has a bucket tracked locally, from the transport's reports when
+ * available and from Discord's default limit otherwise. The sender picks the most urgent message
+ * whose bucket has room, so confirmations are not stuck behind schedule uploads, and schedule
+ * images are dropped from queued messages as soon as a newer image of the same view is queued.
+ * A confirmation carrying files is sent as one request while it is the only confirmation waiting;
+ * when others are waiting, its text is sent right away and its files move to the image lane, so
+ * a large upload never holds back another user's confirmation.
+ */
+public class OutboundDispatcher {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(OutboundDispatcher.class);
+
+    // Discord's usual limit for creating messages in one channel, used until the transport reports otherwise
+    static final int DEFAULT_ROUTE_LIMIT = 5;
+    static final long DEFAULT_ROUTE_WINDOW_MILLIS = 5000;
+
+    /**
+     * Locally tracked state of a route's rate limit bucket.
+     */
+    private static final class RouteBucket {
+        int limit = DEFAULT_ROUTE_LIMIT;
+        int remaining = DEFAULT_ROUTE_LIMIT;
+        long resetAtMillis;
+
+        boolean isReady(long now) {
+            if (now >= resetAtMillis) {
+                remaining = limit;
+            }
+            return remaining > 0;
+        }
+    }
+
+    private final OutboundTransport transport;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Queued messages, one queue per priority, each in arrival order
+    private final List<ArrayDeque<OutboundMessage>> queues = new ArrayList<>();
+
+    // Buckets by channel ID
+    private final Map<Long, RouteBucket> buckets = new HashMap<>();
+
+    private long sentCount;
+    private long supersededCount;
+    private Thread sender;
+
+    /**
+     * Creates a dispatcher using the system clock.
+     *
+     * @param transport The transport messages are sent through.
+     */
+    public OutboundDispatcher(OutboundTransport transport) {
+        this(transport, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param transport The transport messages are sent through.
+     * @param clock     Supplies the current time in milliseconds.
+     */
+    OutboundDispatcher(OutboundTransport transport, LongSupplier clock) {
+        this.transport = transport;
+        this.clock = clock;
+        for (int i = 0; i < OutboundPriority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Starts the sender thread.
+     *
+     * @return This dispatcher.
+     */
+    public OutboundDispatcher start() {
+        sender = CommandExecutor.daemonThreads("outbound-dispatcher").newThread(this::run);
+        sender.start();
+        return this;
+    }
+
+    /**
+     * Stops the sender thread. Messages still queued are not sent.
+     */
+    public void stop() {
+        if (sender != null) {
+            sender.interrupt();
+        }
+    }
+
+    /**
+     * Queues a message. Older schedule images of the same view queued for the same channel are dropped.
+     *
+     * @param message The message to send.
+     */
+    public void enqueue(OutboundMessage message) {
+        lock.lock();
+        try {
+            for (OutboundMessage.Attachment attachment : message.getAttachments()) {
+                if (attachment.isScheduleImage()) {
+                    dropSuperseded(message.getChannelId(), attachment);
+                }
+            }
+            queues.get(message.getPriority().ordinal()).add(message);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of messages waiting to be sent.
+     */
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (ArrayDeque<OutboundMessage> queue : queues) {
+                count += queue.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of messages sent since startup.
+     */
+    public long getSentCount() {
+        lock.lock();
+        try {
+            return sentCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of schedule images dropped because a newer one was queued.
+     */
+    public long getSupersededCount() {
+        lock.lock();
+        try {
+            return supersededCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropSuperseded(long channelId, OutboundMessage.Attachment newer) {
+        for (ArrayDeque<OutboundMessage> queue : queues) {
+            Iterator<OutboundMessage> queued = queue.iterator();
+            while (queued.hasNext()) {
+                OutboundMessage message = queued.next();
+                if (message.getChannelId() == channelId) {
+                    supersededCount += message.dropSupersededBy(newer);
+                    if (message.isEmpty()) {
+                        queued.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sender loop: takes the next sendable message, sends it and updates its route's bucket.
+     */
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                OutboundMessage message = take();
+                deliver(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends one message if its route has room, or returns without sending if none is ready.
+     * Used by the sender loop and by tests driving the dispatcher step by step.
+     *
+     * @return true if a message was sent or discarded, false if nothing was ready.
+     */
+    boolean dispatchNext() {
+        OutboundMessage message;
+        lock.lock();
+        try {
+            message = pollReady(clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+        if (message == null) {
+            return false;
+        }
+        deliver(message);
+        return true;
+    }
+
+    /**
+     * Waits for the most urgent message whose route has room.
+     *
+     * @return The message to send next.
+     * @throws InterruptedException If the sender thread is interrupted.
+     */
+    private OutboundMessage take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                long now = clock.getAsLong();
+                OutboundMessage message = pollReady(now);
+                if (message != null) {
+                    return message;
+                }
+
+                long wakeAt = nextResetAfter(now);
+                if (wakeAt == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.await(wakeAt - now, TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the most urgent, oldest message whose route has room. Must hold the lock.
+     */
+    private OutboundMessage pollReady(long now) {
+        for (ArrayDeque<OutboundMessage> queue : queues) {
+            Iterator<OutboundMessage> queued = queue.iterator();
+            while (queued.hasNext()) {
+                OutboundMessage message = queued.next();
+                if (bucketFor(message.getChannelId()).isReady(now)) {
+                    queued.remove();
+                    splitIfContended(message);
+                    return message;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the files of a confirmation into the image lane if other confirmations are waiting,
+     * leaving just its text to be sent now. Must hold the lock.
+     *
+     * @param message The message about to be sent.
+     */
+    private void splitIfContended(OutboundMessage message) {
+        ArrayDeque<OutboundMessage> confirmations = queues.get(OutboundPriority.CONFIRMATION.ordinal());
+        if (message.getPriority() == OutboundPriority.CONFIRMATION && !message.getContent().isEmpty()
+                && !message.getAttachments().isEmpty() && !confirmations.isEmpty()) {
+            queues.get(OutboundPriority.IMAGE.ordinal()).addFirst(message.splitAttachments());
+        }
+    }
+
+    /**
+     * Finds the earliest time a queued message's route resets. Must hold the lock.
+     */
+    private long nextResetAfter(long now) {
+        long earliest = Long.MAX_VALUE;
+        for (ArrayDeque<OutboundMessage> queue : queues) {
+            for (OutboundMessage message : queue) {
+                earliest = Math.min(earliest, Math.max(now + 1, bucketFor(message.getChannelId()).resetAtMillis));
+            }
+        }
+        return earliest;
+    }
+
+    private RouteBucket bucketFor(long channelId) {
+        return buckets.computeIfAbsent(channelId, id -> new RouteBucket());
+    }
+
+    /**
+     * Sends a message through the transport and records the outcome in its route's bucket.
+     * Rate limited messages go back to the front of their queue; otherwise the message's result is completed.
+     *
+     * @param message The message to send.
+     */
+    private void deliver(OutboundMessage message) {
+        OutboundTransport.RateLimit reported = null;
+        long retryAfter = -1;
+        String outcome = "sent";
+        Exception failure = null;
+        ImageUploadEvent upload = new ImageUploadEvent();
+        upload.begin();
+        long startNanos = System.nanoTime();
+        try {
+            reported = transport.send(message);
+        } catch (OutboundTransport.RateLimitedException e) {
+            retryAfter = e.getRetryAfterMillis();
+            outcome = "rate_limited";
+        } catch (Exception e) {
+            logger.warn("Failed to send message to channel {}", message.getChannelId(), e);
+            outcome = "failed";
+            failure = e;
+        } finally {
+            MetricsRegistry.Phase.SEND.recordSince(startNanos);
+        }
+        MetricsRegistry.global().counter("bot_outbound_messages_total", "outcome", outcome).increment();
+        if (!message.getAttachments().isEmpty() && upload.shouldCommit()) {
+            upload.channelId = message.getChannelId();
+            upload.kind = message.getKind() == OutboundMessage.Kind.EDIT ? "liveBoard" : "message";
+            upload.files = message.getAttachments().size();
+            for (OutboundMessage.Attachment attachment : message.getAttachments()) {
+                upload.bytes += attachment.data().length;
+            }
+            upload.outcome = outcome;
+            upload.commit();
+        }
+
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            RouteBucket bucket = bucketFor(message.getChannelId());
+            if (retryAfter >= 0) {
+                bucket.remaining = 0;
+                bucket.resetAtMillis = now + retryAfter;
+                queues.get(message.getPriority().ordinal()).addFirst(message);
+                logger.debug("Rate limited on channel {}, retrying in {} ms", message.getChannelId(), retryAfter);
+            } else if (reported != null) {
+                bucket.limit = reported.limit();
+                bucket.remaining = reported.remaining();
+                bucket.resetAtMillis = now + reported.resetAfterMillis();
+                sentCount++;
+            } else {
+                if (bucket.remaining == bucket.limit) {
+                    // First request of a new window
+                    bucket.resetAtMillis = now + DEFAULT_ROUTE_WINDOW_MILLIS;
+                }
+                bucket.remaining--;
+                if (failure == null) {
+                    sentCount++;
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (failure != null) {
+            message.getResult().completeExceptionally(failure);
+        } else if (retryAfter < 0) {
+            message.getResult().complete(0L);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.utils.FileUpload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A message waiting in the OutboundDispatcher.
+ * Schedule images are tagged with the view they show and the schedule version they were rendered
+ * from, so an image can be dropped once a newer rendering of the same view is queued.
+ * Besides new messages, the live board's edits, pins and pin lookups are queued as outbound
+ * messages too, so every request to a channel counts against that channel's bucket.
+ */
+public class OutboundMessage {
+
+    /**
+     * The request an outbound message makes.
+     */
+    public enum Kind {
+        /** Posts a new message. */
+        SEND,
+        /** Replaces the attachments of an existing message. */
+        EDIT,
+        /** Pins an existing message. */
+        PIN,
+        /** Looks for a pinned message by the bot with the message's content. */
+        FIND_PINNED
+    }
+
+    /**
+     * A file attached to an outbound message. The data is kept rather than a FileUpload,
+     * which can only be read once, so a rate limited message can be sent again.
+     *
+     * @param fileName        The name of the file.
+     * @param data            The content of the file.
+     * @param scheduleView    The schedule view shown by the file, or null if it is not a schedule image.
+     * @param scheduleVersion The schedule version the image was rendered from.
+     */
+    public record Attachment(String fileName, byte[] data, String scheduleView, long scheduleVersion) {
+
+        /**
+         * Creates an attachment that is not a schedule image.
+         *
+         * @param fileName The name of the file.
+         * @param data     The content of the file.
+         * @return The attachment.
+         */
+        public static Attachment of(String fileName, byte[] data) {
+            return new Attachment(fileName, data, null, -1);
+        }
+
+        /**
+         * Returns the same attachment under another file name.
+         *
+         * @param newFileName The new name of the file.
+         * @return The renamed attachment.
+         */
+        public Attachment withFileName(String newFileName) {
+            return new Attachment(newFileName, data, scheduleView, scheduleVersion);
+        }
+
+        /**
+         * @return A fresh upload of the file's data.
+         */
+        public FileUpload toFileUpload() {
+            return FileUpload.fromData(data, fileName);
+        }
+
+        /**
+         * @return true if the attachment is a schedule image.
+         */
+        public boolean isScheduleImage() {
+            return scheduleView != null;
+        }
+
+        boolean isSupersededBy(Attachment newer) {
+            return scheduleView != null && scheduleView.equals(newer.scheduleView) && scheduleVersion < newer.scheduleVersion;
+        }
+    }
+
+    private final Kind kind;
+    private final MessageChannel channel;
+    private final long channelId;
+    private final long targetMessageId;
+    private final OutboundPriority priority;
+    private final String content;
+    private final List<Attachment> attachments;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+    /**
+     * Creates an outbound message.
+     *
+     * @param channel     The channel to send to; may be null when the transport addresses channels by ID only.
+     * @param channelId   The ID of the channel to send to.
+     * @param priority    The priority of the message.
+     * @param content     The text content, possibly empty.
+     * @param attachments The attached files.
+     */
+    public OutboundMessage(MessageChannel channel, long channelId, OutboundPriority priority, String content, List<Attachment> attachments) {
+        this(Kind.SEND, channel, channelId, 0, priority, content, attachments);
+    }
+
+    private OutboundMessage(Kind kind, MessageChannel channel, long channelId, long targetMessageId, OutboundPriority priority,
+                            String content, List<Attachment> attachments) {
+        this.kind = kind;
+        this.channel = channel;
+        this.channelId = channelId;
+        this.targetMessageId = targetMessageId;
+        this.priority = priority;
+        this.content = content;
+        this.attachments = new ArrayList<>(attachments);
+    }
+
+    /**
+     * Creates a request replacing the attachments of a message.
+     *
+     * @param channel     The channel of the message.
+     * @param messageId   The ID of the message to edit.
+     * @param attachments The new attachments.
+     * @return The outbound edit, queued as an image.
+     */
+    public static OutboundMessage edit(MessageChannel channel, long messageId, List<Attachment> attachments) {
+        return new OutboundMessage(Kind.EDIT, channel, channel.getIdLong(), messageId, OutboundPriority.IMAGE, "", attachments);
+    }
+
+    /**
+     * Creates a request pinning a message.
+     *
+     * @param channel   The channel of the message.
+     * @param messageId The ID of the message to pin.
+     * @return The outbound pin, queued as an image.
+     */
+    public static OutboundMessage pin(MessageChannel channel, long messageId) {
+        return new OutboundMessage(Kind.PIN, channel, channel.getIdLong(), messageId, OutboundPriority.IMAGE, "", List.of());
+    }
+
+    /**
+     * Creates a request looking for a message pinned by the bot with the given content.
+     * Its result is the ID of the first such message, or 0 if there is none.
+     *
+     * @param channel The channel to search.
+     * @param content The exact content of the message.
+     * @return The outbound lookup, queued as an image.
+     */
+    public static OutboundMessage findPinned(MessageChannel channel, String content) {
+        return new OutboundMessage(Kind.FIND_PINNED, channel, channel.getIdLong(), 0, OutboundPriority.IMAGE, content, List.of());
+    }
+
+    /**
+     * Removes the attachments superseded by a newer attachment for the same channel.
+     *
+     * @param newer The newly queued attachment.
+     * @return The number of attachments removed.
+     */
+    int dropSupersededBy(Attachment newer) {
+        int before = attachments.size();
+        attachments.removeIf(attachment -> attachment.isSupersededBy(newer));
+        return before - attachments.size();
+    }
+
+    /**
+     * Moves the attachments into a separate image message to the same channel, leaving this message's text.
+     *
+     * @return The message carrying the attachments.
+     */
+    OutboundMessage splitAttachments() {
+        OutboundMessage images = new OutboundMessage(channel, channelId, OutboundPriority.IMAGE, "", attachments);
+        attachments.clear();
+        return images;
+    }
+
+    /**
+     * @return true if the message is a new message with neither content nor attachments left to send.
+     */
+    boolean isEmpty() {
+        return kind == Kind.SEND && content.isEmpty() && attachments.isEmpty();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public MessageChannel getChannel() {
+        return channel;
+    }
+
+    public long getChannelId() {
+        return channelId;
+    }
+
+    /**
+     * @return The ID of the message edited or pinned, or 0 for other kinds.
+     */
+    public long getTargetMessageId() {
+        return targetMessageId;
+    }
+
+    public OutboundPriority getPriority() {
+        return priority;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public List<Attachment> getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * The outcome of the request. The transport completes it with the ID of the sent, edited, pinned
+     * or found message; the dispatcher completes it with 0 if the transport did not, and
+     * exceptionally if the request failed.
+     *
+     * @return The result of the request.
+     */
+    public CompletableFuture<Long> getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+package com.practiceroombot;
+
+/**
+ * Priorities of outbound messages, most urgent first.
+ */
+public enum OutboundPriority {
+    // Confirmations and errors answering a command
+    CONFIRMATION,
+    // Schedule images
+    IMAGE,
+    // Informational replies such as help text and lookups
+    INFORMATIONAL
+}
@@ -0,0 +1,45 @@
+package com.practiceroombot;
+
+/**
+ * Sends outbound messages to Discord's REST API, or to a stand-in for it in tests.
+ */
+public interface OutboundTransport {
+
+    /**
+     * State of a rate limit bucket as reported by the REST API.
+     *
+     * @param limit            The number of requests allowed per window.
+     * @param remaining        The number of requests left in the current window.
+     * @param resetAfterMillis The time until the window resets.
+     */
+    record RateLimit(int limit, int remaining, long resetAfterMillis) {
+    }
+
+    /**
+     * Thrown when the REST API rejects a request because its bucket is exhausted.
+     */
+    class RateLimitedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterMillis;
+
+        public RateLimitedException(long retryAfterMillis) {
+            super("Rate limited, retry after " + retryAfterMillis + " ms");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    /**
+     * Sends a message, blocking until the request completes.
+     *
+     * @param message The message to send.
+     * @return The state of the route's bucket after the request, or null if the transport does not know it.
+     * @throws RateLimitedException If the request was rejected by the rate limit and should be retried.
+     * @throws Exception            If the request failed for any other reason.
+     */
+    RateLimit send(OutboundMessage message) throws Exception;
+}
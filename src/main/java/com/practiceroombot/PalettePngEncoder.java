@@ -0,0 +1,417 @@
+package com.practiceroombot;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes schedule images as indexed-colour PNGs.
+ * A schedule image has about ten distinct colours laid out in large flat blocks, so a palette of
+ * at most 16 colours packs two pixels per byte, and choosing between the None, Sub and Up filters
+ * per row turns the blocks into long runs of zeros that deflate to almost nothing.
+ * Images with more than 256 colours are handed to ImageIO unchanged.
+ * The file is assembled in a pooled scratch buffer, with every chunk written and the compressed
+ * data deflated straight into it, so once the pool is warm, encoding a TYPE_INT_RGB image of a
+ * width encoded before allocates only the returned array. Other image types are copied to RGB
+ * first, and a new width resizes the row buffers.
+ */
+public class PalettePngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLTE = "PLTE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    // PNG filter types used per row
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+
+    private final int compressionLevel;
+
+    // Idle scratch buffers; a few cover the renders running at the same time
+    private final ArrayBlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(4);
+
+    /**
+     * Reusable working memory of one encoding: the output file, the deflater, the checksum and the row buffers.
+     */
+    private static final class Scratch {
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final Palette palette = new Palette();
+        byte[] out = new byte[32 * 1024];
+        int length;
+        byte[] previous = new byte[0];
+        byte[] current = new byte[0];
+        byte[] filtered = new byte[1];
+
+        Scratch(int compressionLevel) {
+            deflater = new Deflater(compressionLevel);
+        }
+
+        void ensureCapacity(int extra) {
+            if (length + extra > out.length) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, length + extra));
+            }
+        }
+
+        void write(byte[] data, int offset, int count) {
+            ensureCapacity(count);
+            System.arraycopy(data, offset, out, length, count);
+            length += count;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            putInt(out, length, value);
+            length += 4;
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            out[length++] = (byte) value;
+        }
+
+        void prepareRows(int rowBytes) {
+            if (current.length != rowBytes) {
+                previous = new byte[rowBytes];
+                current = new byte[rowBytes];
+                filtered = new byte[1 + rowBytes];
+            } else {
+                // The Up filter of the first row compares against zeros
+                Arrays.fill(previous, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Creates an encoder.
+     *
+     * @param compressionLevel The deflate level, from Deflater.BEST_SPEED (1) to Deflater.BEST_COMPRESSION (9).
+     */
+    public PalettePngEncoder(int compressionLevel) {
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9.");
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Creates an encoder from configuration properties, reading the level from render.pngCompressionLevel (default 6).
+     *
+     * @param properties The bot's configuration properties.
+     * @return The configured encoder.
+     */
+    public static PalettePngEncoder fromProperties(Properties properties) {
+        return new PalettePngEncoder(Integer.parseInt(properties.getProperty("render.pngCompressionLevel", "6")));
+    }
+
+    /**
+     * Encodes an image into a byte array.
+     *
+     * @param image The image to encode.
+     * @return The PNG file.
+     * @throws IOException If the image cannot be encoded.
+     */
+    public byte[] encode(BufferedImage image) throws IOException {
+        Scratch scratch = acquireScratch();
+        try {
+            if (!encodeIndexed(image, scratch)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageIO.write(image, "png", out);
+                return out.toByteArray();
+            }
+            return Arrays.copyOf(scratch.out, scratch.length);
+        } finally {
+            releaseScratch(scratch);
+        }
+    }
+
+    /**
+     * Encodes an image into a stream.
+     *
+     * @param image The image to encode.
+     * @param out   The stream the PNG file is written to.
+     * @throws IOException If the image cannot be encoded or written.
+     */
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        Scratch scratch = acquireScratch();
+        try {
+            if (!encodeIndexed(image, scratch)) {
+                ImageIO.write(image, "png", out);
+                return;
+            }
+            out.write(scratch.out, 0, scratch.length);
+        } finally {
+            releaseScratch(scratch);
+        }
+    }
+
+    private Scratch acquireScratch() {
+        Scratch scratch = scratchPool.poll();
+        if (scratch == null) {
+            scratch = new Scratch(compressionLevel);
+        }
+        scratch.length = 0;
+        scratch.deflater.reset();
+        return scratch;
+    }
+
+    private void releaseScratch(Scratch scratch) {
+        if (!scratchPool.offer(scratch)) {
+            scratch.deflater.end();
+        }
+    }
+
+    /**
+     * Writes an image as an indexed-colour PNG into the scratch buffer.
+     *
+     * @return false if the image has too many colours for a palette.
+     */
+    private static boolean encodeIndexed(BufferedImage image, Scratch scratch) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = rgbPixels(image);
+
+        Palette palette = scratch.palette;
+        if (!palette.collect(pixels)) {
+            // Too many colours for an indexed image
+            return false;
+        }
+
+        int bitDepth = palette.size <= 16 ? 4 : 8;
+        int rowBytes = bitDepth == 4 ? (width + 1) / 2 : width;
+
+        scratch.write(SIGNATURE, 0, SIGNATURE.length);
+
+        int chunkStart = beginChunk(scratch, IHDR);
+        scratch.writeInt(width);
+        scratch.writeInt(height);
+        scratch.writeByte(bitDepth);
+        scratch.writeByte(3); // Indexed colour
+        scratch.writeByte(0); // Deflate compression
+        scratch.writeByte(0); // Adaptive filtering
+        scratch.writeByte(0); // No interlacing
+        endChunk(scratch, chunkStart);
+
+        chunkStart = beginChunk(scratch, PLTE);
+        for (int i = 0; i < palette.size; i++) {
+            int rgb = palette.colours[i];
+            scratch.writeByte(rgb >> 16);
+            scratch.writeByte(rgb >> 8);
+            scratch.writeByte(rgb);
+        }
+        endChunk(scratch, chunkStart);
+
+        chunkStart = beginChunk(scratch, IDAT);
+        compressRows(pixels, width, height, palette, bitDepth, rowBytes, scratch);
+        endChunk(scratch, chunkStart);
+
+        endChunk(scratch, beginChunk(scratch, IEND));
+        return true;
+    }
+
+    /**
+     * Packs, filters and deflates the image rows straight into the scratch buffer.
+     */
+    private static void compressRows(int[] pixels, int width, int height, Palette palette, int bitDepth, int rowBytes, Scratch scratch) {
+        scratch.prepareRows(rowBytes);
+        byte[] previous = scratch.previous;
+        byte[] current = scratch.current;
+        Deflater deflater = scratch.deflater;
+
+        for (int y = 0; y < height; y++) {
+            packRow(pixels, y * width, width, palette, bitDepth, current);
+            filterRow(current, previous, scratch.filtered);
+
+            deflater.setInput(scratch.filtered);
+            while (!deflater.needsInput()) {
+                deflateInto(scratch);
+            }
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflateInto(scratch);
+        }
+        scratch.previous = previous;
+        scratch.current = current;
+    }
+
+    private static void deflateInto(Scratch scratch) {
+        scratch.ensureCapacity(8 * 1024);
+        scratch.length += scratch.deflater.deflate(scratch.out, scratch.length, scratch.out.length - scratch.length);
+    }
+
+    /**
+     * Replaces a row's pixels with their palette indices, two per byte at bit depth 4.
+     */
+    private static void packRow(int[] pixels, int offset, int width, Palette palette, int bitDepth, byte[] row) {
+        if (bitDepth == 8) {
+            for (int x = 0; x < width; x++) {
+                row[x] = (byte) palette.indexOf(pixels[offset + x]);
+            }
+            return;
+        }
+
+        Arrays.fill(row, (byte) 0);
+        for (int x = 0; x < width; x++) {
+            int index = palette.indexOf(pixels[offset + x]);
+            row[x >> 1] |= (byte) ((x & 1) == 0 ? index << 4 : index);
+        }
+    }
+
+    /**
+     * Filters a row with whichever of None, Sub and Up gives the smallest sum of absolute values,
+     * the usual heuristic for the filter that compresses best.
+     */
+    private static void filterRow(byte[] row, byte[] previous, byte[] filtered) {
+        long noneSum = 0;
+        long subSum = 0;
+        long upSum = 0;
+        for (int i = 0; i < row.length; i++) {
+            int left = i > 0 ? row[i - 1] : 0;
+            noneSum += Math.abs((int) row[i]);
+            subSum += Math.abs((byte) (row[i] - left));
+            upSum += Math.abs((byte) (row[i] - previous[i]));
+        }
+
+        int filter = FILTER_NONE;
+        if (subSum < noneSum && subSum <= upSum) {
+            filter = FILTER_SUB;
+        } else if (upSum < noneSum) {
+            filter = FILTER_UP;
+        }
+
+        filtered[0] = (byte) filter;
+        for (int i = 0; i < row.length; i++) {
+            switch (filter) {
+                case FILTER_SUB -> filtered[i + 1] = (byte) (row[i] - (i > 0 ? row[i - 1] : 0));
+                case FILTER_UP -> filtered[i + 1] = (byte) (row[i] - previous[i]);
+                default -> filtered[i + 1] = row[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the image's pixels as 0xRRGGBB values, without copying when the image is TYPE_INT_RGB.
+     */
+    private static int[] rgbPixels(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB && image.getRaster().getDataBuffer() instanceof DataBufferInt buffer
+                && buffer.getNumBanks() == 1 && image.getRaster().getParent() == null) {
+            return buffer.getData();
+        }
+
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] &= 0xFFFFFF;
+        }
+        return pixels;
+    }
+
+    /**
+     * Starts a chunk whose data is written straight into the scratch buffer; its length is patched in by endChunk.
+     *
+     * @return The offset of the chunk, to be passed to endChunk.
+     */
+    private static int beginChunk(Scratch scratch, byte[] type) {
+        int chunkStart = scratch.length;
+        scratch.writeInt(0);
+        scratch.write(type, 0, type.length);
+        return chunkStart;
+    }
+
+    /**
+     * Patches in the length of the chunk started at the given offset and appends the CRC of its type and data.
+     */
+    private static void endChunk(Scratch scratch, int chunkStart) {
+        putInt(scratch.out, chunkStart, scratch.length - chunkStart - 8);
+        scratch.crc.reset();
+        scratch.crc.update(scratch.out, chunkStart + 4, scratch.length - chunkStart - 4);
+        scratch.writeInt((int) scratch.crc.getValue());
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * The distinct colours of an image, with an open-addressing table from colour to palette index.
+     */
+    private static final class Palette {
+        private static final int TABLE_SIZE = 1024; // Power of two, well above MAX_PALETTE_SIZE
+
+        final int[] colours = new int[MAX_PALETTE_SIZE];
+        int size;
+
+        private final int[] keys = new int[TABLE_SIZE];
+        private final short[] indices = new short[TABLE_SIZE];
+        private int lastColour = -1;
+        private int lastIndex;
+
+        /**
+         * Replaces the palette with the colours of the pixels.
+         *
+         * @return false if there are more than MAX_PALETTE_SIZE colours.
+         */
+        boolean collect(int[] pixels) {
+            Arrays.fill(indices, (short) -1);
+            size = 0;
+            lastColour = -1;
+            for (int pixel : pixels) {
+                if (indexOf(pixel) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Looks up a colour, adding it if there is room.
+         *
+         * @return The palette index of the colour, or -1 if the palette is full.
+         */
+        int indexOf(int colour) {
+            colour &= 0xFFFFFF;
+            if (colour == lastColour) {
+                // Neighbouring pixels almost always share a colour
+                return lastIndex;
+            }
+
+            int slot = (colour * 0x9E3779B1) >>> 22;
+            while (indices[slot] >= 0 && keys[slot] != colour) {
+                slot = (slot + 1) & (TABLE_SIZE - 1);
+            }
+            if (indices[slot] < 0) {
+                if (size == MAX_PALETTE_SIZE) {
+                    return -1;
+                }
+                keys[slot] = colour;
+                indices[slot] = (short) size;
+                colours[size++] = colour;
+            }
+
+            lastColour = colour;
+            lastIndex = indices[slot];
+            return lastIndex;
+        }
+    }
+}
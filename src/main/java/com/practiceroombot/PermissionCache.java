@@ -0,0 +1,248 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.events.role.RoleCreateEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.events.role.update.RoleUpdateNameEvent;
+import net.dv8tion.jda.api.events.role.update.RoleUpdatePermissionsEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the command permissions of guild members as bit sets, per guild and member ID, since the
+ * same user can hold different roles in each guild sharing the bot.
+ * Permissions are resolved against role IDs, either configured directly or looked up once per
+ * guild from the role names, so an authorization check is a hash lookup plus a bit test.
+ * Changes to a guild's roles invalidate that guild's entries. Changes to a member's roles are only
+ * reported with the privileged GUILD_MEMBERS intent, which the bot does not request, but every
+ * command carries its author's current roles, so an entry is resolved again as soon as those no
+ * longer match the roles it was resolved from. Entries also expire after a short TTL as a backstop.
+ */
+public class PermissionCache extends ListenerAdapter {
+
+    // Permission bits
+    public static final int OFFICER = 1;
+    public static final int PRACTICE_ROOM = 1 << 1;
+    public static final int ADMIN = 1 << 2;
+
+    // Role names used when no role IDs are configured
+    private static final List<String> OFFICER_ROLE_NAMES = Arrays.asList("officer", "vp", "admin", "el presidente");
+    private static final List<String> PRACTICE_ROOM_ROLE_NAMES = List.of("practice room access");
+
+    /**
+     * Cached permission bits of a member, with the role IDs they were resolved from.
+     */
+    private record Entry(int permissions, long[] roleIds, long expiresAtNanos) {
+
+        boolean isStale(List<Role> roles, long now) {
+            if (now - expiresAtNanos > 0 || roles.size() != roleIds.length) {
+                return true;
+            }
+            for (int i = 0; i < roleIds.length; i++) {
+                if (roles.get(i).getIdLong() != roleIds[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Role IDs granting each permission in one guild, sorted for binary search.
+     */
+    private record GuildRoles(long[] officerRoleIds, long[] practiceRoomRoleIds) {
+    }
+
+    private final long[] configuredOfficerRoleIds;
+    private final long[] configuredPracticeRoomRoleIds;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Member entries per guild ID, keyed by member ID
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, Entry>> guildMembers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, GuildRoles> guildRoles = new ConcurrentHashMap<>();
+
+    // Checks answered from the cache and checks that resolved the member's roles
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a permission cache.
+     *
+     * @param officerRoleIds      Role IDs granting officer access, or an empty array to resolve them by name.
+     * @param practiceRoomRoleIds Role IDs granting practice room access, or an empty array to resolve them by name.
+     * @param ttlMillis           How long a member's permissions are trusted without an invalidating event.
+     */
+    public PermissionCache(long[] officerRoleIds, long[] practiceRoomRoleIds, long ttlMillis) {
+        this(officerRoleIds, practiceRoomRoleIds, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a permission cache.
+     *
+     * @param officerRoleIds      Role IDs granting officer access, or an empty array to resolve them by name.
+     * @param practiceRoomRoleIds Role IDs granting practice room access, or an empty array to resolve them by name.
+     * @param ttlMillis           How long a member's permissions are trusted without an invalidating event.
+     * @param clock               Supplies the current time in nanoseconds.
+     */
+    PermissionCache(long[] officerRoleIds, long[] practiceRoomRoleIds, long ttlMillis, LongSupplier clock) {
+        this.configuredOfficerRoleIds = sorted(officerRoleIds);
+        this.configuredPracticeRoomRoleIds = sorted(practiceRoomRoleIds);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a permission cache from configuration properties.
+     * Reads the comma-separated role IDs from roles.officer.ids and roles.practiceRoom.ids
+     * and the TTL from permissions.cacheTtlMinutes.
+     *
+     * @param properties The bot's configuration properties.
+     * @return The configured permission cache.
+     */
+    public static PermissionCache fromProperties(Properties properties) {
+        return new PermissionCache(
+                parseIds(properties.getProperty("roles.officer.ids", "")),
+                parseIds(properties.getProperty("roles.practiceRoom.ids", "")),
+                TimeUnit.MINUTES.toMillis(Long.parseLong(properties.getProperty("permissions.cacheTtlMinutes", "2"))));
+    }
+
+    /**
+     * Checks whether a member has a permission.
+     *
+     * @param member     The member to check.
+     * @param permission The permission bit to test.
+     * @return true if the member has the permission, false otherwise.
+     */
+    public boolean hasPermission(Member member, int permission) {
+        long now = clock.getAsLong();
+        ConcurrentHashMap<Long, Entry> members = guildMembers.computeIfAbsent(member.getGuild().getIdLong(), id -> new ConcurrentHashMap<>());
+        List<Role> roles = member.getRoles();
+        Entry entry = members.get(member.getIdLong());
+        if (entry == null || entry.isStale(roles, now)) {
+            misses.increment();
+            // Resolve atomically with respect to invalidateGuild, so stale permissions are never written back
+            entry = members.compute(member.getIdLong(), (id, current) ->
+                    current == null || current.isStale(roles, now) ? resolve(member, roles, now) : current);
+        } else {
+            hits.increment();
+        }
+        return (entry.permissions & permission) != 0;
+    }
+
+    /**
+     * @return The number of checks answered from the cache since startup.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of checks that resolved the member's roles since startup.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Forgets the cached permissions and role lookups of one guild.
+     *
+     * @param guildId The ID of the guild.
+     */
+    public void invalidateGuild(long guildId) {
+        guildRoles.remove(guildId);
+        ConcurrentHashMap<Long, Entry> members = guildMembers.get(guildId);
+        if (members != null) {
+            members.clear();
+        }
+    }
+
+    /**
+     * Computes the permission bits of a member from their roles.
+     *
+     * @param member      The member to resolve.
+     * @param memberRoles The member's current roles.
+     * @param now         The current time in nanoseconds.
+     * @return The entry holding the member's permission bits.
+     */
+    private Entry resolve(Member member, List<Role> memberRoles, long now) {
+        GuildRoles roles = guildRoles.computeIfAbsent(member.getGuild().getIdLong(), id -> lookupRoles(member.getGuild()));
+        int permissions = member.hasPermission(Permission.ADMINISTRATOR) ? ADMIN : 0;
+        long[] roleIds = new long[memberRoles.size()];
+        for (int i = 0; i < roleIds.length; i++) {
+            long roleId = memberRoles.get(i).getIdLong();
+            roleIds[i] = roleId;
+            if (Arrays.binarySearch(roles.officerRoleIds, roleId) >= 0) {
+                permissions |= OFFICER;
+            }
+            if (Arrays.binarySearch(roles.practiceRoomRoleIds, roleId) >= 0) {
+                permissions |= PRACTICE_ROOM;
+            }
+        }
+        return new Entry(permissions, roleIds, now + ttlNanos);
+    }
+
+    /**
+     * Determines the role IDs granting each permission in a guild, falling back to role names
+     * for permissions without configured IDs.
+     *
+     * @param guild The guild whose roles are looked up.
+     * @return The role IDs per permission.
+     */
+    private GuildRoles lookupRoles(Guild guild) {
+        long[] officer = configuredOfficerRoleIds.length > 0 ? configuredOfficerRoleIds : roleIdsByName(guild, OFFICER_ROLE_NAMES);
+        long[] practiceRoom = configuredPracticeRoomRoleIds.length > 0 ? configuredPracticeRoomRoleIds : roleIdsByName(guild, PRACTICE_ROOM_ROLE_NAMES);
+        return new GuildRoles(officer, practiceRoom);
+    }
+
+    private static long[] roleIdsByName(Guild guild, List<String> names) {
+        return sorted(guild.getRoles().stream()
+                .filter(role -> names.contains(role.getName().toLowerCase()))
+                .mapToLong(Role::getIdLong)
+                .toArray());
+    }
+
+    private static long[] parseIds(String ids) {
+        return Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .mapToLong(Long::parseLong)
+                .toArray();
+    }
+
+    private static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Override
+    public void onRoleCreate(RoleCreateEvent event) {
+        invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onRoleUpdateName(RoleUpdateNameEvent event) {
+        invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onRoleUpdatePermissions(RoleUpdatePermissionsEvent event) {
+        invalidateGuild(event.getGuild().getIdLong());
+    }
+}
@@ -8,23 +8,18 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 public class RaidCommandHandler implements ICommandHandler {
 
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
         String userMention = event.getAuthor().getAsMention(); // Get the mention string for user notification
 
-        if (parts.length != 4 || CommandHandlerUtilities.lacksOfficerAccess(event)) {
-            event.getChannel().sendMessage(userMention + " Usage: !raid <day> <startTime> <duration> (Officers only)").queue();
+        if (CommandHandlerUtilities.lacksOfficerAccess(event)) {
+            response.reply(userMention + " Usage: !raid <day> <startTime> <duration> (Officers only)");
             return;
         }
 
-        try {
-            String day = parts[1];
-            String startTime = parts[2];
-            double duration = Double.parseDouble(parts[3]);
-            String message = Schedule.addRaid(TimeIntegerizer.integerizeTime(startTime, day), duration);
+        double duration = args.getDuration(2);
+        String message = Schedule.addRaid(args.getSlotIndex(0, 1), duration);
 
-            event.getChannel().sendMessage(userMention + " " + message).queue(); // Include the user mention in the message sent to the channel
-        } catch (NumberFormatException e) {
-            event.getChannel().sendMessage(userMention + " Invalid number format in command.").queue();
-        }
+        response.reply(userMention + " " + message); // Include the user mention in the message sent to the channel
+        ScheduleImageSender.refreshLiveBoard(event);
     }
 }
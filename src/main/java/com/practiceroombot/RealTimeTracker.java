@@ -1,14 +1,12 @@
 package com.practiceroombot;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-
 public class RealTimeTracker {
 
+    // Clock mapping real-world time onto schedule slots; replaceable to simulate time
+    private static volatile SlotClock slotClock = new SlotClock();
+
     /**
-     * Uses TimeIntegerizer to calculate the current time index based on Eastern Standard Time (EST)
+     * Calculates the current time index based on Eastern Time (America/New_York)
      * and floors the time to the nearest half-hour.
      * This index corresponds to the slots in the schedule managed by the PracticeRoomBot.
      *
@@ -16,15 +14,16 @@ public class RealTimeTracker {
      * floored to the nearest half-hour.
      */
     public static int getCurrentTimeIndex() {
-        LocalDateTime now = LocalDateTime.now(ZoneId.of("America/New_York"));
-
-        // Format day and time to match expected input for TimeIntegerizer
-        String formattedDay = now.format(DateTimeFormatter.ofPattern("EEEE", Locale.ENGLISH)).toLowerCase();
-        String formattedTime = now.withMinute(now.getMinute() < 30 ? 0 : 30).format(DateTimeFormatter.ofPattern("h:mma", Locale.ENGLISH)).toLowerCase();
+        return slotClock.currentIndex();
+    }
 
-        // Integerize the current day and time
-        return TimeIntegerizer.integerizeTime(formattedTime, formattedDay);
+    /**
+     * Replaces the slot clock used to determine the current time index.
+     * Tests and benchmarks use this to drive simulated time.
+     *
+     * @param clock The slot clock to use from now on.
+     */
+    static void setSlotClock(SlotClock clock) {
+        slotClock = clock;
     }
 }
-
-
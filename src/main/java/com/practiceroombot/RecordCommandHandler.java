@@ -8,31 +8,23 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 public class RecordCommandHandler implements ICommandHandler {
 
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
         String userMention = event.getAuthor().getAsMention(); // Get the mention string for user notification
 
         if (CommandHandlerUtilities.lacksOfficerAccess(event)) {
-            event.getChannel().sendMessage(userMention + " You do not have permission to use this command.").queue();
-            return;
-        }
-
-        if (parts.length != 4) {
-            event.getChannel().sendMessage(userMention + " Usage: !record <day> <startTime> <duration>").queue();
+            response.reply(userMention + " You do not have permission to use this command.");
             return;
         }
 
         try {
-            String day = parts[1];
-            String startTime = parts[2];
-            double duration = Double.parseDouble(parts[3]);
-            int timeIndex = TimeIntegerizer.integerizeTime(startTime, day);
+            double duration = args.getDuration(2);
+            int timeIndex = args.getSlotIndex(0, 1);
             String message = Schedule.addRecordingSession(timeIndex, duration);
 
-            event.getChannel().sendMessage(userMention + " " + message).queue(); // Include the user mention in the message sent to the channel
-        } catch (NumberFormatException e) {
-            event.getChannel().sendMessage(userMention + " Invalid number format in command.").queue();
+            response.reply(userMention + " " + message); // Include the user mention in the message sent to the channel
+            ScheduleImageSender.refreshLiveBoard(event);
         } catch (Exception e) {
-            event.getChannel().sendMessage(userMention + " An unexpected error occurred: " + e.getMessage()).queue();
+            response.reply(userMention + " An unexpected error occurred: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,166 @@
+package com.practiceroombot;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Caches encoded schedule images by schedule version, highlighted user and view.
+ * Entries are evicted least recently used first once their total size exceeds the limit.
+ * A schedule mutation bumps the version, so entries of older versions are never hit again
+ * and are dropped as soon as an image of a newer version is stored.
+ */
+public class RenderCache {
+
+    /**
+     * Identifies a rendering.
+     *
+     * @param version The schedule version the image was rendered from.
+     * @param user    The highlighted user, or null for a neutral view.
+     * @param view    The key of the ScheduleView shown.
+     */
+    private record Key(long version, String user, String view) {
+    }
+
+    private final long maxBytes;
+
+    // Encoded images in access order, least recently used first
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long newestVersion = -1;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes The maximum total size of the cached images in bytes.
+     */
+    public RenderCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative.");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates a cache from configuration properties, reading the size from render.cacheKilobytes (default 8192).
+     *
+     * @param properties The bot's configuration properties.
+     * @return The configured cache.
+     */
+    public static RenderCache fromProperties(Properties properties) {
+        return new RenderCache(Long.parseLong(properties.getProperty("render.cacheKilobytes", "8192")) * 1024L);
+    }
+
+    /**
+     * Looks up a cached image. The returned array is shared and must not be modified.
+     *
+     * @param version The schedule version.
+     * @param user    The highlighted user, or null for a neutral view.
+     * @return The encoded image, or null if it is not cached.
+     */
+    public byte[] get(long version, String user) {
+        return get(version, user, ScheduleView.FULL);
+    }
+
+    /**
+     * Looks up a cached image of a view. The returned array is shared and must not be modified.
+     *
+     * @param version The schedule version.
+     * @param user    The highlighted user, or null for a neutral view.
+     * @param view    The part of the schedule shown.
+     * @return The encoded image, or null if it is not cached.
+     */
+    public synchronized byte[] get(long version, String user, ScheduleView view) {
+        byte[] image = entries.get(new Key(version, user, view.getKey()));
+        if (image == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return image;
+    }
+
+    /**
+     * Stores an image. Images of versions older than the newest stored one are not kept.
+     *
+     * @param version The schedule version the image was rendered from.
+     * @param user    The highlighted user, or null for a neutral view.
+     * @param image   The encoded image.
+     */
+    public void put(long version, String user, byte[] image) {
+        put(version, user, ScheduleView.FULL, image);
+    }
+
+    /**
+     * Stores an image of a view. Images of versions older than the newest stored one are not kept.
+     *
+     * @param version The schedule version the image was rendered from.
+     * @param user    The highlighted user, or null for a neutral view.
+     * @param view    The part of the schedule shown.
+     * @param image   The encoded image.
+     */
+    public synchronized void put(long version, String user, ScheduleView view, byte[] image) {
+        if (version < newestVersion || image.length > maxBytes) {
+            return;
+        }
+        if (version > newestVersion) {
+            // Everything cached so far shows an outdated schedule
+            entries.clear();
+            totalBytes = 0;
+            newestVersion = version;
+        }
+
+        byte[] previous = entries.put(new Key(version, user, view.getKey()), image);
+        if (previous != null) {
+            totalBytes -= previous.length;
+        }
+        totalBytes += image.length;
+
+        Iterator<Map.Entry<Key, byte[]>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes) {
+            totalBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return The number of cached images.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The total size of the cached images in bytes.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return The number of lookups served from the cache since startup.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that had to render since startup.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Describes the cache's occupancy and hit rate.
+     *
+     * @return A one-line summary of the cache.
+     */
+    public synchronized String describeStats() {
+        return "Render cache: " + entries.size() + " images, " + totalBytes / 1024 + " KB of " + maxBytes / 1024
+                + " KB, " + hits + " hits, " + misses + " misses";
+    }
+}
@@ -14,15 +14,16 @@ public class ResetScheduleCommandHandler implements ICommandHandler {
      * Resets the schedule for all rooms and raids, if the user has admin privileges.
      *
      * @param event The event representing the message received.
-     * @param parts The command arguments.
+     * @param args  The command arguments.
+     * @param response The response the confirmation is added to.
      */
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
         String userMention = event.getAuthor().getAsMention(); // Get the mention string for user notification
 
         // Check if the user has admin access
-        if (!userHasAdminAccess(event)) {
-            event.getChannel().sendMessage(userMention + " You do not have permission to use this command.").queue();
+        if (CommandHandlerUtilities.lacksAdminAccess(event)) {
+            response.reply(userMention + " You do not have permission to use this command.");
             return;
         }
 
@@ -30,18 +31,7 @@ public class ResetScheduleCommandHandler implements ICommandHandler {
         Schedule.resetCalendar();
 
         // Send confirmation message with user mention
-        event.getChannel().sendMessage(userMention + " All room reservations and raid schedules have been reset.").queue();
-    }
-
-    /**
-     * Checks if the user who triggered the event has administrative privileges.
-     * Implement this method based on your Discord server's role configuration.
-     *
-     * @param event The event representing the message received.
-     * @return True if the user has admin privileges, false otherwise.
-     */
-    private boolean userHasAdminAccess(MessageReceivedEvent event) {
-        // Replace with your method of checking if the user has admin privileges
-        return event.getMember() != null && event.getMember().hasPermission(net.dv8tion.jda.api.Permission.ADMINISTRATOR);
+        response.reply(userMention + " All room reservations and raid schedules have been reset.");
+        ScheduleImageSender.refreshLiveBoard(event);
     }
 }
@@ -0,0 +1,195 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges command responses bound for the same channel into as few messages as possible.
+ * The first response in a channel opens a short window; responses arriving within it, even for
+ * different users, are appended and sent as one message request when the window closes or the
+ * message would exceed Discord's content or attachment limits. Batches are handed to the
+ * OutboundDispatcher, which decides when each one is sent.
+ */
+public class ResponseCoalescer {
+
+    // Discord limits for a single message
+    static final int MAX_CONTENT_LENGTH = Message.MAX_CONTENT_LENGTH;
+    static final int MAX_FILES = Message.MAX_FILE_AMOUNT;
+
+    private final long windowMillis;
+    private final OutboundDispatcher dispatcher;
+    private final ScheduledExecutorService scheduler;
+
+    // Open batches by channel ID
+    private final ConcurrentHashMap<Long, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * Responses waiting to be sent to one channel.
+     */
+    private static final class Batch {
+        final MessageChannel channel;
+        final StringBuilder content = new StringBuilder();
+        final List<OutboundMessage.Attachment> attachments = new ArrayList<>();
+        OutboundPriority priority = OutboundPriority.INFORMATIONAL;
+
+        Batch(MessageChannel channel) {
+            this.channel = channel;
+        }
+
+        boolean fits(CommandResponse response) {
+            int separator = content.isEmpty() ? 0 : 1;
+            return content.length() + separator + response.getContent().length() <= MAX_CONTENT_LENGTH
+                    && attachments.size() + response.getAttachments().size() <= MAX_FILES;
+        }
+
+        void add(CommandResponse response) {
+            String text = response.getContent();
+            if (!text.isEmpty()) {
+                if (!content.isEmpty()) {
+                    content.append('\n');
+                }
+                content.append(text);
+            }
+            for (OutboundMessage.Attachment attachment : response.getAttachments()) {
+                attachments.add(attachment.withFileName(uniqueFileName(attachments, attachment.fileName())));
+            }
+            // The most urgent response decides the priority of the whole batch
+            if (response.getPriority().compareTo(priority) < 0) {
+                priority = response.getPriority();
+            }
+        }
+    }
+
+    /**
+     * Picks a name not yet used by the batch's attachments, so files merged from several responses,
+     * such as every user's schedule.png, stay distinct: schedule.png, schedule-2.png and so on.
+     *
+     * @param attachments The attachments already in the batch.
+     * @param fileName    The name the file was attached under.
+     * @return The name to use in the batch.
+     */
+    static String uniqueFileName(List<OutboundMessage.Attachment> attachments, String fileName) {
+        String candidate = fileName;
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        for (int n = 2; isTaken(attachments, candidate); n++) {
+            candidate = base + "-" + n + extension;
+        }
+        return candidate;
+    }
+
+    private static boolean isTaken(List<OutboundMessage.Attachment> attachments, String fileName) {
+        for (OutboundMessage.Attachment attachment : attachments) {
+            if (attachment.fileName().equals(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param windowMillis How long to wait for further responses to the same channel; 0 sends immediately.
+     * @param dispatcher   The dispatcher that sends the merged messages.
+     */
+    public ResponseCoalescer(long windowMillis, OutboundDispatcher dispatcher) {
+        this.windowMillis = windowMillis;
+        this.dispatcher = dispatcher;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(CommandExecutor.daemonThreads("response-coalescer"));
+    }
+
+    /**
+     * Creates a coalescer from configuration properties, reading the window from responses.coalesceMillis.
+     *
+     * @param properties The bot's configuration properties.
+     * @param dispatcher The dispatcher that sends the merged messages.
+     * @return The configured coalescer.
+     */
+    public static ResponseCoalescer fromProperties(Properties properties, OutboundDispatcher dispatcher) {
+        return new ResponseCoalescer(Long.parseLong(properties.getProperty("responses.coalesceMillis", "250")), dispatcher);
+    }
+
+    /**
+     * Queues a response for its channel.
+     *
+     * @param response The response to send.
+     */
+    public void submit(CommandResponse response) {
+        if (windowMillis <= 0) {
+            Batch batch = new Batch(response.getChannel());
+            batch.add(response);
+            send(batch);
+            return;
+        }
+
+        long channelId = response.getChannel().getIdLong();
+        Batch[] full = new Batch[1];
+        Batch[] opened = new Batch[1];
+        batches.compute(channelId, (id, batch) -> {
+            if (batch != null && !batch.fits(response)) {
+                full[0] = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(response.getChannel());
+                opened[0] = batch;
+            }
+            batch.add(response);
+            return batch;
+        });
+
+        if (full[0] != null) {
+            send(full[0]);
+        }
+        if (opened[0] != null) {
+            Batch batch = opened[0];
+            scheduler.schedule(() -> flush(channelId, batch), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends a batch when its window closes, unless it was already sent because it filled up.
+     * A batch opened after that has its own window and is left alone.
+     *
+     * @param channelId The ID of the channel.
+     * @param batch     The batch whose window closed.
+     */
+    private void flush(long channelId, Batch batch) {
+        if (batches.remove(channelId, batch)) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Hands a batch to the dispatcher as a single message, splitting text that exceeds the content limit.
+     *
+     * @param batch The batch to send.
+     */
+    private void send(Batch batch) {
+        String content = batch.content.toString();
+        while (content.length() > MAX_CONTENT_LENGTH) {
+            // Only a single oversized response can get here; split it at a line break where possible
+            int split = content.lastIndexOf('\n', MAX_CONTENT_LENGTH);
+            if (split <= 0) {
+                split = MAX_CONTENT_LENGTH;
+            }
+            enqueue(batch, content.substring(0, split), List.of());
+            content = content.substring(split).stripLeading();
+        }
+        enqueue(batch, content, batch.attachments);
+    }
+
+    private void enqueue(Batch batch, String content, List<OutboundMessage.Attachment> attachments) {
+        dispatcher.enqueue(new OutboundMessage(batch.channel, batch.channel.getIdLong(), batch.priority, content, attachments));
+    }
+}
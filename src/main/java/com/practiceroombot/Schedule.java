@@ -8,6 +8,8 @@ import java.util.Arrays;
 /**
  * Represents the schedule for room reservations and raids in the practice room bot.
  * This class manages and tracks reservations and raids for different rooms and times.
+ * Commands run concurrently, so operations that change the schedule synchronize on this class;
+ * callers combining several operations should hold the same lock for the whole sequence.
  */
 public class Schedule {
 
@@ -28,6 +30,16 @@ public class Schedule {
     static String[] pr1schedule = new String[SLOTS_PER_WEEK];
     static String[] pr2schedule = new String[SLOTS_PER_WEEK];
 
+    // Incremented on every change to the schedule; only written while holding the class lock
+    private static volatile long version;
+
+    // Slot ranges changed by the most recent versions, packed as start << 16 | end and indexed by version
+    private static final int CHANGE_LOG_SIZE = 64;
+    private static final int[] changeLog = new int[CHANGE_LOG_SIZE];
+
+    // Flight recorder event of the mutation in progress; only touched while holding the class lock
+    private static ScheduleMutationEvent activeMutation;
+
     /**
      * Constructs a new Schedule object and initializes the schedule to a clean state.
      */
@@ -39,10 +51,94 @@ public class Schedule {
      * Resets the calendar, clearing all reservations and raids by setting the
      * respective arrays to their initial values (false for raids, null for reservations).
      */
-    public static void resetCalendar() {
+    public static synchronized void resetCalendar() {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("resetCalendar", 0, SLOTS_PER_WEEK);
         Arrays.fill(raids, false);
         Arrays.fill(pr1schedule, null);
         Arrays.fill(pr2schedule, null);
+        bumpVersion(0, SLOTS_PER_WEEK);
+        endMutation(mutation, startNanos);
+    }
+
+    /**
+     * Returns the current version of the schedule. The version changes whenever the schedule does,
+     * so anything derived from the schedule, such as a rendered image, can be tagged with it.
+     *
+     * @return The current schedule version.
+     */
+    public static long getVersion() {
+        return version;
+    }
+
+    /**
+     * Marks the schedule as changed and records the changed slots. Must be called while holding the class lock.
+     *
+     * @param start The first changed slot.
+     * @param end   The slot after the last changed slot.
+     */
+    private static void bumpVersion(int start, int end) {
+        start = Math.max(0, Math.min(start, SLOTS_PER_WEEK));
+        end = Math.max(start, Math.min(end, SLOTS_PER_WEEK));
+        changeLog[(int) ((version + 1) % CHANGE_LOG_SIZE)] = start << 16 | end;
+        version++;
+
+        if (activeMutation != null) {
+            activeMutation.startSlot = start;
+            activeMutation.endSlot = end;
+            activeMutation.outcome = "changed";
+        }
+    }
+
+    /**
+     * Starts the flight recorder event of a mutation. Must be called while holding the class lock.
+     *
+     * @param operation The name of the mutation.
+     * @param startSlot The first slot requested.
+     * @param endSlot   The slot after the last one requested.
+     * @return The event, to be passed to endMutation.
+     */
+    private static ScheduleMutationEvent beginMutation(String operation, int startSlot, int endSlot) {
+        ScheduleMutationEvent event = new ScheduleMutationEvent();
+        event.begin();
+        event.operation = operation;
+        event.startSlot = startSlot;
+        event.endSlot = endSlot;
+        event.outcome = "rejected"; // Until bumpVersion records a change
+        activeMutation = event;
+        return event;
+    }
+
+    /**
+     * Commits the flight recorder event of a mutation and times the mutation phase.
+     * Must be called while holding the class lock.
+     *
+     * @param event      The event returned by beginMutation.
+     * @param startNanos The start time of the mutation, taken with System.nanoTime().
+     */
+    private static void endMutation(ScheduleMutationEvent event, long startNanos) {
+        activeMutation = null;
+        event.commit();
+        MetricsRegistry.Phase.MUTATION.recordSince(startNanos);
+    }
+
+    /**
+     * Marks the slots changed after a given version, so derived data such as a rendered image can be
+     * updated incrementally. Must be called while holding the class lock.
+     *
+     * @param sinceVersion The version the derived data reflects.
+     * @param changed      Set to true for every slot changed since that version.
+     * @return false if the change log does not reach back to that version, in which case every slot may have changed.
+     */
+    static boolean markChangedSlots(long sinceVersion, boolean[] changed) {
+        if (sinceVersion < 0 || sinceVersion > version || version - sinceVersion > CHANGE_LOG_SIZE) {
+            return false;
+        }
+        for (long changedVersion = sinceVersion + 1; changedVersion <= version; changedVersion++) {
+            int range = changeLog[(int) (changedVersion % CHANGE_LOG_SIZE)];
+            Arrays.fill(changed, range >>> 16, range & 0xFFFF, true);
+        }
+        return true;
     }
 
     /**
@@ -56,7 +152,20 @@ public class Schedule {
      * @param duration The duration of the reservation in half-hour increments.
      * @return true if the reservation was successful, false otherwise.
      */
-    public static String addReservation(int roomNumber, String user, int startTime, double duration) {
+    public static synchronized String addReservation(int roomNumber, String user, int startTime, double duration) {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("addReservation", startTime, calculateEndTime(startTime, duration));
+        try {
+            return addReservationLocked(roomNumber, user, startTime, duration);
+        } finally {
+            endMutation(mutation, startNanos);
+        }
+    }
+
+    /**
+     * Performs addReservation once the mutation is being measured. Must be called while holding the class lock.
+     */
+    private static String addReservationLocked(int roomNumber, String user, int startTime, double duration) {
         validateRoomNumber(roomNumber);
 
         int endTime = calculateEndTime(startTime, duration);
@@ -83,6 +192,7 @@ public class Schedule {
         }
 
         reserveSlots(roomNumber, user, startTime, endTime);
+        bumpVersion(startTime, endTime);
         return "Congrats! You've reserved room " + roomNumber + ". Happy practicing!";
     }
 
@@ -114,7 +224,20 @@ public class Schedule {
      * @param duration The duration of the raid in half-hour increments.
      * @return A message indicating the result of the operation.
      */
-    public static String addRaid(int startTime, double duration) {
+    public static synchronized String addRaid(int startTime, double duration) {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("addRaid", startTime, calculateEndTime(startTime, duration));
+        try {
+            return addRaidLocked(startTime, duration);
+        } finally {
+            endMutation(mutation, startNanos);
+        }
+    }
+
+    /**
+     * Performs addRaid once the mutation is being measured. Must be called while holding the class lock.
+     */
+    private static String addRaidLocked(int startTime, double duration) {
         startTime = adjustStartTimeForMonday(startTime);
         if (!isValidTimeIndex(startTime) || !isValidTimeIndex(calculateEndTime(startTime, duration))) {
             return "Failed: Invalid start time or duration.";
@@ -128,6 +251,7 @@ public class Schedule {
 
         int endTime = calculateEndTime(startTime, duration);
         reserveRaidSlots(startTime, endTime);
+        bumpVersion(startTime, endTime);
         return "Raid scheduled successfully from " + startTime + " to " + endTime;
     }
 
@@ -139,7 +263,20 @@ public class Schedule {
      * @param timeIndex The index of the time slot within the raid range to be cleared.
      * @return true if a raid marking was removed, false otherwise.
      */
-    public static boolean removeRaidInRange(int timeIndex) {
+    public static synchronized boolean removeRaidInRange(int timeIndex) {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("removeRaid", timeIndex, timeIndex + 1);
+        try {
+            return removeRaidInRangeLocked(timeIndex);
+        } finally {
+            endMutation(mutation, startNanos);
+        }
+    }
+
+    /**
+     * Performs removeRaidInRange once the mutation is being measured. Must be called while holding the class lock.
+     */
+    private static boolean removeRaidInRangeLocked(int timeIndex) {
         // Method implementation to remove raid marking...
         if (!isValidTimeIndex(timeIndex)) {
             logger.error("Failed: Invalid time index provided: {}", timeIndex);
@@ -149,6 +286,7 @@ public class Schedule {
         int start = findRaidStart(timeIndex);
         int end = findRaidEnd(timeIndex);
         Arrays.fill(raids, start, end, false);
+        bumpVersion(start, end);
         return true;
     }
 
@@ -173,7 +311,20 @@ public class Schedule {
      * @param duration  The duration of the recording session in half-hour increments.
      * @return A message indicating the result of the operation.
      */
-    public static String addRecordingSession(int startTime, double duration) {
+    public static synchronized String addRecordingSession(int startTime, double duration) {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("addRecordingSession", startTime, calculateEndTime(startTime, duration));
+        try {
+            return addRecordingSessionLocked(startTime, duration);
+        } finally {
+            endMutation(mutation, startNanos);
+        }
+    }
+
+    /**
+     * Performs addRecordingSession once the mutation is being measured. Must be called while holding the class lock.
+     */
+    private static String addRecordingSessionLocked(int startTime, double duration) {
         int endTime = calculateEndTime(startTime, duration);
 
         if (!isValidTimeIndex(startTime) || !isValidTimeIndex(endTime)) {
@@ -186,6 +337,7 @@ public class Schedule {
         }
 
         reserveRecordingSlots(startTime, endTime);
+        bumpVersion(startTime, endTime);
         return "Recording session scheduled successfully from index " + startTime + " to " + endTime;
     }
 
@@ -195,7 +347,20 @@ public class Schedule {
      *
      * @param timeIndex The index of a time slot within the recording session to be cancelled.
      */
-    public static void cancelRecordingSession(int timeIndex) {
+    public static synchronized void cancelRecordingSession(int timeIndex) {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("cancelRecordingSession", timeIndex, timeIndex + 1);
+        try {
+            cancelRecordingSessionLocked(timeIndex);
+        } finally {
+            endMutation(mutation, startNanos);
+        }
+    }
+
+    /**
+     * Performs cancelRecordingSession once the mutation is being measured. Must be called while holding the class lock.
+     */
+    private static void cancelRecordingSessionLocked(int timeIndex) {
         // Validate the provided index
         if (!isValidTimeIndex(timeIndex)) {
             logger.error("Invalid time index for cancelling recording session.");
@@ -214,6 +379,7 @@ public class Schedule {
 
         // Cancel slots occupied by the recording session
         cancelRecordingSlots(start, end);
+        bumpVersion(start, end);
     }
 
     /**
@@ -435,7 +601,20 @@ public class Schedule {
      * @param user      The name of the user whose reservation is to be canceled.
      * @param timeIndex The index of the time slot at which the reservation starts.
      */
-    static void cancelReservationInRoom(boolean isRoomOne, String user, int timeIndex) {
+    static synchronized void cancelReservationInRoom(boolean isRoomOne, String user, int timeIndex) {
+        long startNanos = System.nanoTime();
+        ScheduleMutationEvent mutation = beginMutation("cancelReservation", timeIndex, timeIndex + 1);
+        try {
+            cancelReservationInRoomLocked(isRoomOne, user, timeIndex);
+        } finally {
+            endMutation(mutation, startNanos);
+        }
+    }
+
+    /**
+     * Performs cancelReservationInRoom once the mutation is being measured. Must be called while holding the class lock.
+     */
+    private static void cancelReservationInRoomLocked(boolean isRoomOne, String user, int timeIndex) {
         String[] selectedSchedule = isRoomOne ? pr1schedule : pr2schedule;
 
         if (isValidTimeIndex(timeIndex) && user.equals(selectedSchedule[timeIndex])) {
@@ -447,6 +626,7 @@ public class Schedule {
                     selectedSchedule[i] = null;
                 }
             }
+            bumpVersion(start, end);
         }
     }
 
@@ -550,7 +730,7 @@ public class Schedule {
      * @param timeIndex The index of the time slot.
      * @return true if the user has a reservation at the specified time slot in the specified room, false otherwise.
      */
-    public static boolean isUserReservationPresent(String user, boolean isRoomOne, int timeIndex) {
+    public static synchronized boolean isUserReservationPresent(String user, boolean isRoomOne, int timeIndex) {
         if (!isValidTimeIndex(timeIndex)) {
             logger.error("Invalid time index: {}", timeIndex);
             return false;
@@ -560,7 +740,7 @@ public class Schedule {
         return user.equals(schedule[timeIndex]);
     }
 
-    public static String getReservation(int roomNumber, int timeIndex) {
+    public static synchronized String getReservation(int roomNumber, int timeIndex) {
         String[] schedule = roomNumber == 1 ? pr1schedule : pr2schedule;
         if (isValidTimeIndex(timeIndex)) {
             return schedule[timeIndex];
@@ -568,4 +748,48 @@ public class Schedule {
             throw new IllegalArgumentException("Invalid time index: " + timeIndex);
         }
     }
+
+    /**
+     * Counts the slots of a room held by member reservations, not counting recording sessions.
+     *
+     * @param roomNumber The room number, 1 or 2.
+     * @return The number of reserved half-hour slots in the room.
+     */
+    public static synchronized int countReservedSlots(int roomNumber) {
+        validateRoomNumber(roomNumber);
+        String[] schedule = roomNumber == 1 ? pr1schedule : pr2schedule;
+        int count = 0;
+        for (String holder : schedule) {
+            if (holder != null && !"Recording Session".equals(holder)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of half-hour slots held by recording sessions.
+     */
+    public static synchronized int countRecordingSlots() {
+        int count = 0;
+        for (int i = 0; i < SLOTS_PER_WEEK; i++) {
+            if (isRecordingSession(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of half-hour slots blocked by raids.
+     */
+    public static synchronized int countRaidSlots() {
+        int count = 0;
+        for (boolean raid : raids) {
+            if (raid) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
@@ -1,31 +1,202 @@
 package com.practiceroombot;
 
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import net.dv8tion.jda.api.utils.FileUpload;
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 public class ScheduleImageSender {
 
+    // Publishes images after mutations, or null to attach an image to each mutation's response
+    private static volatile SchedulePublisher publisher;
+
+    // Encoded images of the current schedule version
+    private static volatile RenderCache renderCache = new RenderCache(8L * 1024L * 1024L);
+
+    // Encoder producing indexed-colour PNGs from the rendered rasters
+    private static volatile PalettePngEncoder pngEncoder = new PalettePngEncoder(6);
+
+    // Renders active users' images after changes, or null if pre-rendering is disabled
+    private static volatile SchedulePrerenderer prerenderer;
+
+    /**
+     * Sets the publisher used to show schedule changes.
+     *
+     * @param schedulePublisher The publisher, or null to attach an image to each mutation's response.
+     */
+    public static void setPublisher(SchedulePublisher schedulePublisher) {
+        publisher = schedulePublisher;
+    }
+
+    /**
+     * Sets the cache of encoded schedule images.
+     *
+     * @param cache The render cache to use from now on.
+     */
+    public static void setRenderCache(RenderCache cache) {
+        renderCache = cache;
+    }
+
+    /**
+     * Sets the encoder used for schedule images.
+     *
+     * @param encoder The PNG encoder to use from now on.
+     */
+    public static void setPngEncoder(PalettePngEncoder encoder) {
+        pngEncoder = encoder;
+    }
+
+    /**
+     * Sets the background pre-renderer of active users' images.
+     *
+     * @param schedulePrerenderer The pre-renderer, or null to render images only on demand.
+     */
+    public static void setPrerenderer(SchedulePrerenderer schedulePrerenderer) {
+        prerenderer = schedulePrerenderer;
+    }
+
+    /**
+     * @return The background pre-renderer, or null if pre-rendering is disabled.
+     */
+    public static SchedulePrerenderer getPrerenderer() {
+        return prerenderer;
+    }
+
+    /**
+     * Records that a user viewed the schedule image, so their image is pre-rendered after future changes.
+     * @param userName The name of the user.
+     */
+    public static void noteViewer(String userName) {
+        SchedulePrerenderer current = prerenderer;
+        if (current != null) {
+            current.userActive(userName);
+        }
+    }
+
     /**
-     * Sends the current schedule image to the specified Discord channel.
+     * Starts pre-rendering the active users' images of the current schedule version in the background.
+     * Called after every committed schedule change.
+     */
+    public static void prerenderActiveUsers() {
+        SchedulePrerenderer current = prerenderer;
+        if (current != null) {
+            current.scheduleChanged();
+        }
+    }
+
+    /**
+     * @return The cache of encoded schedule images.
+     */
+    public static RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Renders the current schedule as a PNG image, reusing the cached image if the schedule has not
+     * changed since it was last rendered for the same user. The returned array is shared and must not be modified.
+     * @param requestingUser The user whose reservations are highlighted, or null for a neutral view.
+     * @return The encoded image.
+     * @throws IOException If an error occurs during image processing.
+     */
+    public static byte[] renderSchedule(String requestingUser) throws IOException {
+        return renderSchedule(requestingUser, ScheduleView.FULL);
+    }
+
+    /**
+     * Renders part of the current schedule as a PNG image, reusing the cached image if the schedule has not
+     * changed since the same view was last rendered for the same user. The returned array is shared and must not be modified.
+     * @param requestingUser The user whose reservations are highlighted, or null for a neutral view.
+     * @param view The part of the schedule to show and its scale.
+     * @return The encoded image.
+     * @throws IOException If an error occurs during image processing.
+     */
+    public static byte[] renderSchedule(String requestingUser, ScheduleView view) throws IOException {
+        // Read the version first, so the image is never cached under a version newer than its content
+        long version = Schedule.getVersion();
+        RenderCache cache = renderCache;
+        byte[] cached = cache.get(version, requestingUser, view);
+        if (cached != null) {
+            return cached;
+        }
+
+        byte[] imageBytes;
+        if (view.isFull()) {
+            // Render the schedule into a pooled image and encode it as an indexed-colour PNG
+            BufferedImage scheduleImage = ScheduleVisualizer.acquireImage();
+            try {
+                long startNanos = System.nanoTime();
+                ScheduleVisualizer.renderInto(scheduleImage, requestingUser);
+                MetricsRegistry.Phase.RENDER.recordSince(startNanos);
+                imageBytes = encode(scheduleImage);
+            } finally {
+                ScheduleVisualizer.releaseImage(scheduleImage);
+            }
+        } else {
+            // Cropped and scaled views have their own size, so they are not pooled
+            long startNanos = System.nanoTime();
+            BufferedImage viewImage = ScheduleVisualizer.renderView(view, requestingUser);
+            MetricsRegistry.Phase.RENDER.recordSince(startNanos);
+            imageBytes = encode(viewImage);
+        }
+        cache.put(version, requestingUser, view, imageBytes);
+        return imageBytes;
+    }
+
+    /**
+     * Encodes a rendered image as a PNG, timing the encoding phase.
+     */
+    private static byte[] encode(BufferedImage image) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            return pngEncoder.encode(image);
+        } finally {
+            MetricsRegistry.Phase.ENCODE.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Attaches the current schedule image to a command's response, so it is sent together with the reply.
      * @param event The message event that triggered the command.
-     * @throws IOException If an error occurs during image processing or sending.
+     * @param response The response the image is attached to.
+     * @throws IOException If an error occurs during image processing.
      */
-    public static void sendScheduleImage(MessageReceivedEvent event) throws IOException {
-        // Generate an image representation of the schedule
-        BufferedImage scheduleImage = ScheduleVisualizer.generateScheduleImage(event.getAuthor().getName());
+    public static void attachScheduleImage(MessageReceivedEvent event, CommandResponse response) throws IOException {
+        // Read the version first, so a change made during rendering is never hidden behind this image
+        long version = Schedule.getVersion();
+        String userName = event.getAuthor().getName();
+        byte[] imageBytes = renderSchedule(userName);
 
-        // Convert the BufferedImage to a byte array
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(scheduleImage, "png", outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(imageBytes);
+        // Attach the image to the response, tagged so an outdated copy can be dropped before sending
+        response.attachScheduleImage("schedule.png", imageBytes, userName, version);
+    }
 
-        // Send the image as a file attachment in the Discord channel
-        event.getChannel().sendFiles(FileUpload.fromData(inputStream, "schedule.png")).queue();
+    /**
+     * Shows a schedule change: attaches the updated schedule image to the response, unless a publisher
+     * is set and shows the change as part of a burst or on the live board.
+     * Also starts pre-rendering the updated images of active users, including the one who made the change.
+     * @param event The message event that triggered the change.
+     * @param response The response of the command.
+     * @throws IOException If an error occurs during image processing.
+     */
+    public static void publishScheduleChange(MessageReceivedEvent event, CommandResponse response) throws IOException {
+        noteViewer(event.getAuthor().getName());
+        prerenderActiveUsers();
+        SchedulePublisher current = publisher;
+        if (current == null || !current.markDirty(event.getChannel(), event.getAuthor().getName())) {
+            attachScheduleImage(event, response);
+        }
+    }
+
+    /**
+     * Marks the live board of the event's channel for an update, if live board mode is enabled,
+     * and starts pre-rendering active users' images.
+     * Used by commands that change the schedule without posting an image.
+     * @param event The message event that triggered the change.
+     */
+    public static void refreshLiveBoard(MessageReceivedEvent event) {
+        prerenderActiveUsers();
+        SchedulePublisher current = publisher;
+        if (current != null && current.hasLiveBoard()) {
+            current.markDirty(event.getChannel(), event.getAuthor().getName());
+        }
     }
 }
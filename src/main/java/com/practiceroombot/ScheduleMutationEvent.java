@@ -0,0 +1,32 @@
+package com.practiceroombot;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning one schedule mutation, including the time spent holding the schedule lock.
+ */
+@Name("practiceroombot.ScheduleMutation")
+@Label("Schedule Mutation")
+@Category({"Practice Room Bot", "Schedule"})
+@Description("A change to the schedule made while holding the schedule lock")
+public class ScheduleMutationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Start Slot")
+    @Description("First slot requested, or first slot changed if the mutation succeeded")
+    int startSlot;
+
+    @Label("End Slot")
+    @Description("Slot after the last one requested, or after the last one changed if the mutation succeeded")
+    int endSlot;
+
+    @Label("Outcome")
+    @Description("changed, or rejected if the schedule was left as it was")
+    String outcome;
+}
@@ -0,0 +1,241 @@
+package com.practiceroombot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Renders the highlighted schedule images of recently active users in the background.
+ * After a schedule change, the next display command of each active user would otherwise pay the
+ * full render cost; this renders their images into the RenderCache ahead of time instead.
+ * The work runs on one minimum-priority thread that sleeps between images to stay below a share
+ * of one CPU, and it starts over with the newest version as soon as the schedule changes again,
+ * so no image of a superseded version is rendered past that point.
+ */
+public class SchedulePrerenderer {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(SchedulePrerenderer.class);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Renders one user's schedule image into the render cache.
+     */
+    interface Renderer {
+        void render(String user) throws IOException;
+    }
+
+    private final int maxUsers;
+    private final int cpuPercent;
+    private final Renderer renderer;
+
+    // Users by name in access order, most recently active last
+    private final LinkedHashMap<String, Boolean> activeUsers;
+
+    // Single background thread at minimum priority, so command handling always comes first
+    private final ExecutorService worker;
+
+    // Set while a run is queued but has not started yet, so a burst of changes queues one run
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    // Only touched by the worker thread
+    private long renderedVersion = -1;
+
+    private volatile long rendered;
+    private volatile long superseded;
+
+    /**
+     * Creates a pre-renderer.
+     *
+     * @param maxUsers   How many of the most recently active users get their images pre-rendered.
+     * @param cpuPercent The share of one CPU the background thread may use, from 1 to 100.
+     */
+    public SchedulePrerenderer(int maxUsers, int cpuPercent) {
+        this(maxUsers, cpuPercent, ScheduleImageSender::renderSchedule);
+    }
+
+    /**
+     * Creates a pre-renderer.
+     *
+     * @param maxUsers   How many of the most recently active users get their images pre-rendered.
+     * @param cpuPercent The share of one CPU the background thread may use, from 1 to 100.
+     * @param renderer   Renders a user's image into the render cache.
+     */
+    SchedulePrerenderer(int maxUsers, int cpuPercent, Renderer renderer) {
+        if (maxUsers <= 0) {
+            throw new IllegalArgumentException("The number of pre-rendered users must be positive.");
+        }
+        if (cpuPercent < 1 || cpuPercent > 100) {
+            throw new IllegalArgumentException("The pre-render CPU share must be between 1 and 100 percent.");
+        }
+        this.maxUsers = maxUsers;
+        this.cpuPercent = cpuPercent;
+        this.renderer = renderer;
+        this.activeUsers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > SchedulePrerenderer.this.maxUsers;
+            }
+        };
+
+        ThreadFactory daemon = CommandExecutor.daemonThreads("prerender");
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = daemon.newThread(runnable);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a pre-renderer from configuration properties, reading the number of users from
+     * render.prerender.users (default 8, 0 disables pre-rendering) and the CPU share from
+     * render.prerender.cpuPercent (default 25).
+     *
+     * @param properties The bot's configuration properties.
+     * @return The configured pre-renderer, or null if pre-rendering is disabled.
+     */
+    public static SchedulePrerenderer fromProperties(Properties properties) {
+        int users = Integer.parseInt(properties.getProperty("render.prerender.users", "8"));
+        if (users == 0) {
+            return null;
+        }
+        return new SchedulePrerenderer(users, Integer.parseInt(properties.getProperty("render.prerender.cpuPercent", "25")));
+    }
+
+    /**
+     * Records that a user viewed or changed the schedule, making them one of the most recently active users.
+     *
+     * @param user The name of the user.
+     */
+    public void userActive(String user) {
+        synchronized (activeUsers) {
+            activeUsers.put(user, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Requests pre-rendering of the current schedule version. Returns immediately; the images are
+     * rendered on the background thread.
+     */
+    public void scheduleChanged() {
+        if (queued.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                queued.set(false);
+                try {
+                    prerender();
+                } catch (Exception e) {
+                    logger.error("Error while pre-rendering schedule images: ", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Renders the images of the active users for the current schedule version, most recently active first.
+     * Starts over whenever the schedule changes during the run.
+     *
+     * @throws InterruptedException If the thread is interrupted while throttling.
+     * @throws IOException          If an image cannot be encoded.
+     */
+    void prerender() throws InterruptedException, IOException {
+        long version = Schedule.getVersion();
+        if (version == renderedVersion) {
+            return;
+        }
+
+        List<String> users = snapshotUsers();
+        int next = 0;
+        while (next < users.size()) {
+            long current = Schedule.getVersion();
+            if (current != version) {
+                // A newer version supersedes the rest of this run
+                superseded += users.size() - next;
+                version = current;
+                users = snapshotUsers();
+                next = 0;
+                continue;
+            }
+
+            long cpuStart = cpuTimeNanos();
+            renderer.render(users.get(next++));
+            rendered++;
+            throttle(cpuTimeNanos() - cpuStart);
+        }
+        renderedVersion = version;
+    }
+
+    /**
+     * @return The active users, most recently active first.
+     */
+    private List<String> snapshotUsers() {
+        List<String> users;
+        synchronized (activeUsers) {
+            users = new ArrayList<>(activeUsers.keySet());
+        }
+        Collections.reverse(users);
+        return users;
+    }
+
+    /**
+     * Sleeps long enough after a render that the thread's CPU use stays within its share.
+     *
+     * @param busyNanos The CPU time the render took.
+     * @throws InterruptedException If the thread is interrupted while sleeping.
+     */
+    private void throttle(long busyNanos) throws InterruptedException {
+        long idleNanos = busyNanos * (100 - cpuPercent) / cpuPercent;
+        if (idleNanos > 0) {
+            Thread.sleep(idleNanos / 1_000_000L, (int) (idleNanos % 1_000_000L));
+        }
+    }
+
+    /**
+     * @return The CPU time of the current thread, or the wall-clock time if CPU time is not measurable.
+     */
+    private static long cpuTimeNanos() {
+        long cpu = THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+        return cpu >= 0 ? cpu : System.nanoTime();
+    }
+
+    /**
+     * @return The number of images rendered since startup.
+     */
+    long getRendered() {
+        return rendered;
+    }
+
+    /**
+     * @return The number of images skipped because the schedule changed before they were rendered.
+     */
+    long getSuperseded() {
+        return superseded;
+    }
+
+    /**
+     * Describes how many images were pre-rendered and skipped.
+     *
+     * @return A one-line summary of the pre-renderer.
+     */
+    public String describeStats() {
+        int users;
+        synchronized (activeUsers) {
+            users = activeUsers.size();
+        }
+        return "Pre-renderer: " + users + " of " + maxUsers + " active users tracked, " + rendered
+                + " images rendered, " + superseded + " skipped as superseded, " + cpuPercent + "% CPU cap";
+    }
+}
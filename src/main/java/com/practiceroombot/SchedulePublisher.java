@@ -0,0 +1,217 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Publishes the schedule image after mutations, debounced per channel.
+ * The first mutation in a quiet channel is not delayed: its command attaches the image to its own
+ * reply, so a lone change still costs a single request. Further mutations within the quiet period
+ * only mark the channel dirty; their image is rendered and uploaded once the channel has been quiet
+ * for a short period, or once the first unpublished mutation has waited for the maximum delay, so a
+ * burst of mutations costs at most one image more than a lone change.
+ * If all unpublished mutations came from one user the image highlights that user's reservations;
+ * otherwise a neutral view is published. With a live board, every mutation is left to the board.
+ */
+public class SchedulePublisher {
+
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(SchedulePublisher.class);
+
+    // View name of images without highlights; never a Discord user name
+    static final String NEUTRAL_VIEW = "";
+
+    private final long quietMillis;
+    private final long maxDelayMillis;
+    private final OutboundDispatcher dispatcher;
+    private final LiveScheduleBoard liveBoard;
+    private final LongSupplier clock;
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(CommandExecutor.daemonThreads("schedule-publisher"));
+
+    // Bursts in progress by channel ID; guarded by itself
+    private final Map<Long, Burst> bursts = new HashMap<>();
+
+    /**
+     * Mutations of one channel made in quick succession.
+     */
+    private static final class Burst {
+        final MessageChannel channel;
+        long lastMillis;
+
+        // Mutations not shown by any image yet
+        boolean changed;
+        long firstChangeMillis;
+        String user;
+        boolean severalUsers;
+
+        Burst(MessageChannel channel, long now) {
+            this.channel = channel;
+            this.lastMillis = now;
+        }
+
+        void addChange(long now, String changedBy) {
+            if (!changed) {
+                changed = true;
+                firstChangeMillis = now;
+                user = changedBy;
+                severalUsers = false;
+            } else if (!user.equals(changedBy)) {
+                severalUsers = true;
+            }
+        }
+    }
+
+    /**
+     * Creates a publisher.
+     *
+     * @param quietMillis    How long a channel must see no mutations before its image is published.
+     * @param maxDelayMillis The longest a mutation waits for its image while mutations keep coming.
+     * @param dispatcher     The dispatcher images are sent through.
+     * @param liveBoard      The live board to refresh instead of sending images, or null.
+     */
+    public SchedulePublisher(long quietMillis, long maxDelayMillis, OutboundDispatcher dispatcher, LiveScheduleBoard liveBoard) {
+        this(quietMillis, maxDelayMillis, dispatcher, liveBoard, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a publisher.
+     *
+     * @param quietMillis    How long a channel must see no mutations before its image is published.
+     * @param maxDelayMillis The longest a mutation waits for its image while mutations keep coming.
+     * @param dispatcher     The dispatcher images are sent through.
+     * @param liveBoard      The live board to refresh instead of sending images, or null.
+     * @param clock          Supplies the current time in milliseconds.
+     */
+    SchedulePublisher(long quietMillis, long maxDelayMillis, OutboundDispatcher dispatcher, LiveScheduleBoard liveBoard,
+                      LongSupplier clock) {
+        if (quietMillis < 0 || maxDelayMillis < quietMillis) {
+            throw new IllegalArgumentException("Publish delays must satisfy 0 <= quiet period <= maximum delay.");
+        }
+        this.quietMillis = quietMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.dispatcher = dispatcher;
+        this.liveBoard = liveBoard;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a publisher from configuration properties, reading schedule.publish.quietMillis (default 1500)
+     * and schedule.publish.maxDelayMillis (default 5000).
+     *
+     * @param properties The bot's configuration properties.
+     * @param dispatcher The dispatcher images are sent through.
+     * @param liveBoard  The live board to refresh instead of sending images, or null.
+     * @return The configured publisher.
+     */
+    public static SchedulePublisher fromProperties(Properties properties, OutboundDispatcher dispatcher, LiveScheduleBoard liveBoard) {
+        return new SchedulePublisher(Long.parseLong(properties.getProperty("schedule.publish.quietMillis", "1500")),
+                Long.parseLong(properties.getProperty("schedule.publish.maxDelayMillis", "5000")), dispatcher, liveBoard);
+    }
+
+    /**
+     * @return true if changes are shown on a live board rather than as new images.
+     */
+    public boolean hasLiveBoard() {
+        return liveBoard != null;
+    }
+
+    /**
+     * Records a mutation made from a channel. If no burst is in progress and there is no live board,
+     * the change is left to the caller, which attaches the updated image to its response; otherwise
+     * the channel's image is marked outdated and published later.
+     *
+     * @param channel The channel the mutation was made from.
+     * @param user    The name of the user who made the mutation.
+     * @return true if the publisher shows the change, false if the caller should attach the image itself.
+     */
+    public boolean markDirty(MessageChannel channel, String user) {
+        long now = clock.getAsLong();
+        synchronized (bursts) {
+            Burst burst = bursts.get(channel.getIdLong());
+            if (burst == null) {
+                bursts.put(channel.getIdLong(), burst = new Burst(channel, now));
+                scheduler.schedule(() -> check(channel.getIdLong()), quietMillis, TimeUnit.MILLISECONDS);
+                if (liveBoard == null) {
+                    return false;
+                }
+            }
+            burst.lastMillis = now;
+            burst.addChange(now, user);
+            return true;
+        }
+    }
+
+    /**
+     * Publishes a channel's image if its burst has ended or its oldest unpublished mutation has waited
+     * long enough, and checks again later while the burst goes on.
+     *
+     * @param channelId The ID of the channel.
+     */
+    void check(long channelId) {
+        MessageChannel channel;
+        String user;
+        synchronized (bursts) {
+            Burst burst = bursts.get(channelId);
+            if (burst == null) {
+                return;
+            }
+
+            long now = clock.getAsLong();
+            long quietAt = burst.lastMillis + quietMillis;
+            boolean overdue = burst.changed && now >= burst.firstChangeMillis + maxDelayMillis;
+            if (now >= quietAt) {
+                bursts.remove(channelId);
+            } else {
+                long checkAt = overdue || !burst.changed ? quietAt : Math.min(quietAt, burst.firstChangeMillis + maxDelayMillis);
+                scheduler.schedule(() -> check(channelId), checkAt - now, TimeUnit.MILLISECONDS);
+                if (!overdue) {
+                    return;
+                }
+            }
+            if (!burst.changed) {
+                return;
+            }
+
+            channel = burst.channel;
+            user = burst.severalUsers ? NEUTRAL_VIEW : burst.user;
+            burst.changed = false;
+        }
+        publish(channel, user);
+    }
+
+    /**
+     * Renders and sends the latest schedule for a channel, or refreshes its live board.
+     *
+     * @param channel The channel to publish to.
+     * @param view    The user whose reservations are highlighted, or NEUTRAL_VIEW.
+     */
+    private void publish(MessageChannel channel, String view) {
+        if (liveBoard != null) {
+            liveBoard.refresh(channel);
+            return;
+        }
+
+        try {
+            // Read the version first, so a change made during rendering is never hidden behind this image
+            long version = Schedule.getVersion();
+            byte[] image = ScheduleImageSender.renderSchedule(view.equals(NEUTRAL_VIEW) ? null : view);
+
+            OutboundMessage.Attachment attachment = new OutboundMessage.Attachment("schedule.png", image, view, version);
+            dispatcher.enqueue(new OutboundMessage(channel, channel.getIdLong(), OutboundPriority.IMAGE, "", List.of(attachment)));
+        } catch (Exception e) {
+            logger.warn("Failed to publish the schedule image to channel {}", channel.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.practiceroombot;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning one rendering of a schedule image, before encoding.
+ */
+@Name("practiceroombot.ScheduleRender")
+@Label("Schedule Render")
+@Category({"Practice Room Bot", "Rendering"})
+@Description("A schedule image drawn by the ScheduleVisualizer")
+public class ScheduleRenderEvent extends Event {
+
+    @Label("View")
+    String view;
+
+    @Label("Highlighted User")
+    String user;
+
+    @Label("Schedule Version")
+    long scheduleVersion;
+
+    @Label("Base Layer Updated")
+    @Description("Whether the render first had to repaint the changed slots of the shared base layer")
+    boolean baseLayerUpdated;
+
+    @Label("Pixels")
+    @DataAmount(DataAmount.BYTES)
+    long pixelBytes;
+}
@@ -2,6 +2,9 @@ package com.practiceroombot;
 
 import com.practiceroombot.Schedule;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.Calendar;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -9,11 +12,15 @@ import java.util.TimeZone;
 
 public class ScheduleResetTask extends TimerTask {
 
+    // Logger for logging errors and information
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleResetTask.class);
+
     @Override
     public void run() {
         // Call the reset method in Schedule
         Schedule.resetCalendar();
-        System.out.println("Schedule has been reset.");
+        ScheduleImageSender.prerenderActiveUsers();
+        logger.info("Schedule has been reset.");
     }
 
     public static void startResetScheduleTimer() {
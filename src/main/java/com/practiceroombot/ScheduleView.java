@@ -0,0 +1,114 @@
+package com.practiceroombot;
+
+/**
+ * The part of the schedule an image shows and the scale it is drawn at.
+ * The full view shows every day of the booking week, all day, for both rooms, at the normal size;
+ * cropping to a day, a time window or one room and scaling down shrink the pixel work and the
+ * encoded image accordingly.
+ */
+public final class ScheduleView {
+
+    public static final ScheduleView FULL = new ScheduleView(-1, 0, Schedule.SLOTS_PER_DAY, 0, 1.0);
+
+    static final double MIN_SCALE = 0.5;
+    static final double MAX_SCALE = 2.0;
+
+    private final int day;        // 0 for Monday through 6 for Sunday, or -1 for the whole week
+    private final int firstSlot;  // First half-hour of the day shown
+    private final int endSlot;    // Half-hour after the last one shown
+    private final int room;       // 1 or 2, or 0 for both rooms
+    private final double scale;   // Size relative to the normal image
+
+    private ScheduleView(int day, int firstSlot, int endSlot, int room, double scale) {
+        this.day = day;
+        this.firstSlot = firstSlot;
+        this.endSlot = endSlot;
+        this.room = room;
+        this.scale = scale;
+    }
+
+    /**
+     * Applies a display option: a day ("thu"), a time window ("6pm-11pm"), a room ("room1", "r2")
+     * or a scale ("0.5x").
+     *
+     * @param option The option as typed by the user.
+     * @return The view with the option applied, or null if the option is not recognized.
+     * @throws IllegalArgumentException If the option is recognized but its value is invalid.
+     */
+    public ScheduleView withOption(String option) {
+        String lower = option.toLowerCase();
+
+        if (lower.endsWith("x") && lower.length() > 1 && (Character.isDigit(lower.charAt(0)) || lower.charAt(0) == '.')) {
+            double newScale;
+            try {
+                newScale = Double.parseDouble(lower.substring(0, lower.length() - 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (newScale < MIN_SCALE || newScale > MAX_SCALE) {
+                throw new IllegalArgumentException("Scale must be between " + MIN_SCALE + "x and " + MAX_SCALE + "x.");
+            }
+            return new ScheduleView(day, firstSlot, endSlot, room, newScale);
+        }
+
+        if (lower.equals("room1") || lower.equals("r1") || lower.equals("room2") || lower.equals("r2")) {
+            return new ScheduleView(day, firstSlot, endSlot, lower.charAt(lower.length() - 1) - '0', scale);
+        }
+
+        int dash = option.indexOf('-');
+        if (dash > 0) {
+            int start = CommandTokenizer.parseTime(option, 0, dash);
+            int end = CommandTokenizer.parseTime(option, dash + 1, option.length());
+            if (start < 0 || end < 0) {
+                return null;
+            }
+            if (end == 0) {
+                end = Schedule.SLOTS_PER_DAY; // Until midnight
+            }
+            if (end <= start) {
+                throw new IllegalArgumentException("The time window must end after it starts.");
+            }
+            return new ScheduleView(day, start, end, room, scale);
+        }
+
+        int newDay = CommandTokenizer.parseDay(option, 0, option.length());
+        if (newDay >= 0) {
+            return new ScheduleView(newDay, firstSlot, endSlot, room, scale);
+        }
+        return null;
+    }
+
+    /**
+     * @return true if this is the full week at the normal size.
+     */
+    public boolean isFull() {
+        return day < 0 && firstSlot == 0 && endSlot == Schedule.SLOTS_PER_DAY && room == 0 && scale == 1.0;
+    }
+
+    /**
+     * @return A short text identifying the view, used to cache and supersede its images.
+     */
+    public String getKey() {
+        return (day < 0 ? "week" : "day" + day) + " " + firstSlot + "-" + endSlot + " r" + room + " " + scale + "x";
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getFirstSlot() {
+        return firstSlot;
+    }
+
+    public int getEndSlot() {
+        return endSlot;
+    }
+
+    public int getRoom() {
+        return room;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+}
@@ -2,12 +2,23 @@ package com.practiceroombot;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 import static com.practiceroombot.Schedule.isRecordingSession;
 
 /**
  * Generates a visual representation of the schedule as an image.
  * Different colors are used to represent different states of reservations.
+ * The parts shared by every user (labels, grid, blackout cells and all bookings in neutral colors)
+ * form a base layer that is redrawn only when the schedule version changes; a user's image is a
+ * copy of the base layer with just that user's reservations painted over it.
+ * Cells are written straight into the images' int[] pixel buffers rather than through Graphics2D,
+ * and rendered images come from a pool so that a render does not allocate a new image.
+ * When the schedule changes, only the blocks of the slots reported changed by Schedule are
+ * repainted in the base layer, so the cost of an update follows the size of the change.
+ * The schedule lock is only held to copy the colors of the slots to paint; the painting and the
+ * copy of the base layer happen after it is released, so renders never hold up mutations.
  */
 public class ScheduleVisualizer {
 
@@ -16,36 +27,290 @@ public class ScheduleVisualizer {
     private static final int LABEL_WIDTH = 120;
     private static final int GRID_LINE_WIDTH = 2; // Increased grid line width
 
-    // Color definitions for different types of reservations
-    private static final Color ORANGE = new Color(255, 165, 0); // Color for affected by club events
-    private static final Color GREEN = new Color(0, 128, 0);    // Color for recording sessions
-    private static final Color RED = new Color(255, 0, 0);      // Color for room 1 reserved
-    private static final Color YELLOW = new Color(255, 255, 0); // Color for room 2 reserved
-    private static final Color BLUE = new Color(0, 0, 255);     // Color for both rooms reserved
-    private static final Color PURPLE = new Color(128, 0, 128); // Color for user's reservation in room 1
-    private static final Color PINK = new Color(255, 192, 203); // Color for user's reservation in room 2
+    // Colors for the different types of reservations are defined by SlotState
+    private static final int NO_HIGHLIGHT = -1; // Marks blocks that look the same for every user
 
     private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun", "Mon"};
 
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 20);
+
+    static final int WIDTH = 48 * BLOCK_SIZE + LABEL_WIDTH; // For time labels and time blocks
+    static final int HEIGHT = 9 * BLOCK_SIZE; // For day labels and day blocks
+
+    // Side of the colored square inside a block's black outline
+    private static final int CELL_FILL = BLOCK_SIZE - GRID_LINE_WIDTH - 1;
+
+    // Labels on a black background, drawn once and copied under every base layer
+    private static final int[] TEMPLATE = drawTemplate();
+
+    // Images handed out by renderInto's callers; a few are enough for the concurrent renders
+    private static final ImageBufferPool IMAGE_POOL = new ImageBufferPool(WIDTH, HEIGHT, 4);
+
+    // Guards the base layer and the snapshot arrays below; taken before the Schedule lock, never after
+    private static final Object baseLock = new Object();
+
+    // Neutral rendering of the schedule version baseVersion
+    private static final int[] baseLayer = new int[WIDTH * HEIGHT];
+    private static long baseVersion = -1;
+
+    // Slots to repaint in the base layer and their neutral colors, copied under the Schedule lock
+    private static final boolean[] changedSlots = new boolean[Schedule.SLOTS_PER_WEEK];
+    private static final int[] slotColors = new int[Schedule.SLOTS_PER_WEEK];
+
+    // Highlight colors of the requesting user's slots, copied under the Schedule lock
+    private static final int[] userColors = new int[Schedule.SLOTS_PER_WEEK];
+
     /**
      * Generates an image representing the current schedule.
      * This method creates a BufferedImage where different colors represent different states
      * of reservations, including the requesting user's reservations.
      *
-     * @param requestingUser The user for whom the schedule is being visualized.
+     * @param requestingUser The user for whom the schedule is being visualized, or null for a view without highlights.
      * @return A BufferedImage representing the current state of the schedule.
      */
     public static BufferedImage generateScheduleImage(String requestingUser) {
-        // Swap width and height to transpose the schedule
-        int width = 48 * BLOCK_SIZE + LABEL_WIDTH; // For time labels and time blocks
-        int height = 9 * BLOCK_SIZE; // For day labels and day blocks
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        renderInto(image, requestingUser);
+        return image;
+    }
+
+    /**
+     * Takes an image from the pool for renderInto. Hand it back with releaseImage once it is encoded.
+     *
+     * @return A pooled image with undefined content.
+     */
+    public static BufferedImage acquireImage() {
+        return IMAGE_POOL.acquire();
+    }
 
+    /**
+     * Returns an image taken with acquireImage to the pool.
+     *
+     * @param image The image, which must not be used afterwards.
+     */
+    public static void releaseImage(BufferedImage image) {
+        IMAGE_POOL.release(image);
+    }
+
+    /**
+     * Forgets the base layer, so the next render redraws it from every slot instead of repainting
+     * only the changed ones.
+     */
+    static void discardBaseLayer() {
+        synchronized (baseLock) {
+            baseVersion = -1;
+        }
+    }
+
+    /**
+     * Renders the current schedule into an existing image, overwriting all of its pixels.
+     *
+     * @param image          A TYPE_INT_RGB image of the schedule's size, such as one from acquireImage.
+     * @param requestingUser The user for whom the schedule is being visualized, or null for a view without highlights.
+     */
+    public static void renderInto(BufferedImage image, String requestingUser) {
+        ScheduleRenderEvent event = new ScheduleRenderEvent();
+        event.begin();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        synchronized (baseLock) {
+            // Copy the changed slots and the user's cells from one version, so they match
+            long version;
+            boolean redrawAll = false;
+            synchronized (Schedule.class) {
+                version = Schedule.getVersion();
+                if (baseVersion != version) {
+                    redrawAll = snapshotChangedSlots();
+                }
+                if (requestingUser != null) {
+                    for (int index = 0; index < userColors.length; index++) {
+                        userColors[index] = determineUserColor(index, requestingUser);
+                    }
+                }
+            }
+
+            if (baseVersion != version) {
+                if (redrawAll) {
+                    drawBaseLayer();
+                } else {
+                    repaintChangedSlots();
+                }
+                baseVersion = version;
+                event.baseLayerUpdated = true;
+            }
+            event.scheduleVersion = version;
+            System.arraycopy(baseLayer, 0, pixels, 0, pixels.length);
+
+            // Overlay the requesting user's reservations
+            if (requestingUser != null) {
+                for (int index = 0; index < userColors.length; index++) {
+                    if (userColors[index] != NO_HIGHLIGHT) {
+                        fillBlock(pixels, (index + 39) / 48, (index + 39) % 48, userColors[index]);
+                    }
+                }
+            }
+        }
+        commitRender(event, ScheduleView.FULL, requestingUser, pixels.length);
+    }
+
+    /**
+     * Renders part of the schedule at a chosen scale. Only the requested days, time window and room are
+     * drawn, so the work and the image size follow the requested region.
+     * A day view shows the calendar day, with Monday before 7:30 PM taken from the end of the booking week.
+     *
+     * @param view           The part of the schedule to show and its scale.
+     * @param requestingUser The user for whom the schedule is being visualized, or null for a view without highlights.
+     * @return A new image of the view.
+     */
+    public static BufferedImage renderView(ScheduleView view, String requestingUser) {
+        ScheduleRenderEvent event = new ScheduleRenderEvent();
+        event.begin();
+        double scale = view.getScale();
+        int blockSize = (int) Math.round(BLOCK_SIZE * scale);
+        int labelWidth = (int) Math.round(LABEL_WIDTH * scale);
+        int labelHeight = (int) Math.round(LABEL_HEIGHT * scale);
+        int gap = Math.max(1, (int) Math.round(GRID_LINE_WIDTH * scale));
+        int columns = view.getEndSlot() - view.getFirstSlot();
+        int rows = view.getDay() < 0 ? DAYS.length : 1;
+
+        int width = labelWidth + columns * blockSize;
+        int height = labelHeight + rows * blockSize;
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        // Labels of the visible rows and of the full hours inside the window
         Graphics2D graphics = image.createGraphics();
-        graphics.setFont(new Font("Arial", Font.PLAIN, 20));
+        graphics.setFont(scale == 1.0 ? LABEL_FONT : LABEL_FONT.deriveFont((float) (LABEL_FONT.getSize() * scale)));
+        FontMetrics fm = graphics.getFontMetrics();
+        for (int row = 0; row < rows; row++) {
+            String label = view.getDay() < 0 ? DAYS[row] : DAYS[view.getDay()];
+            int y = labelHeight + row * blockSize + blockSize / 2 + fm.getAscent() / 2 - fm.getDescent() / 2;
+            graphics.drawString(label, (int) Math.round(5 * scale), y);
+        }
+        for (int hour = view.getFirstSlot(); hour < view.getEndSlot(); hour++) {
+            if (hour % 2 == 0) {
+                int i = hour / 2;
+                String timeLabel = String.format("%d", (i == 0 || i == 12) ? 12 : i % 12);
+                int x = labelWidth + (hour - view.getFirstSlot()) * blockSize;
+                graphics.drawString(timeLabel, x - fm.stringWidth(timeLabel) / 2, labelHeight / 2);
+            }
+        }
+        graphics.dispose();
 
-        drawDayLabels(graphics);
-        drawTimeLabels(graphics);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int cellSize = blockSize - gap - 1;
+        synchronized (Schedule.class) {
+            event.scheduleVersion = Schedule.getVersion();
+            for (int row = 0; row < rows; row++) {
+                for (int hour = view.getFirstSlot(); hour < view.getEndSlot(); hour++) {
+                    SlotState state;
+                    if (view.getDay() >= 0) {
+                        state = determineViewState(TimeIntegerizer.integerizeIndices(view.getDay(), hour), requestingUser, view.getRoom());
+                    } else if (isBlackoutPeriod(row, hour)) {
+                        state = SlotState.BLACKOUT;
+                    } else {
+                        state = determineViewState(determineIndex(row, hour), requestingUser, view.getRoom());
+                    }
+                    int x = labelWidth + (hour - view.getFirstSlot()) * blockSize + 1;
+                    int y = labelHeight + row * blockSize + 1;
+                    fillRect(pixels, width, x, y, cellSize, state.getRgb());
+                }
+            }
+        }
+        commitRender(event, view, requestingUser, pixels.length);
+        return image;
+    }
+
+    /**
+     * Commits the flight recorder event of a render.
+     */
+    private static void commitRender(ScheduleRenderEvent event, ScheduleView view, String requestingUser, int pixelCount) {
+        if (event.shouldCommit()) {
+            event.view = view.getKey();
+            event.user = requestingUser;
+            event.pixelBytes = pixelCount * 4L;
+            event.commit();
+        }
+    }
+
+    /**
+     * Determines the state of a block in a view of both rooms or of a single room. Must hold the Schedule lock.
+     *
+     * @param index          The index of the time block in the schedule.
+     * @param requestingUser The user for whom the schedule is being visualized, or null for a view without highlights.
+     * @param room           The room shown, or 0 for both rooms.
+     * @return The state of the block.
+     */
+    static SlotState determineViewState(int index, String requestingUser, int room) {
+        if (room == 0) {
+            return determineState(index, requestingUser);
+        }
+        if (index < 0 || index >= Schedule.pr1schedule.length) {
+            return SlotState.FREE;
+        }
+        if (isRecordingSession(index)) {
+            return SlotState.RECORDING;
+        }
+
+        String reservation = room == 1 ? Schedule.pr1schedule[index] : Schedule.pr2schedule[index];
+        if (reservation != null) {
+            boolean own = reservation.equals(requestingUser);
+            if (room == 1) {
+                return own ? SlotState.OWN_ROOM_1 : SlotState.ROOM_1;
+            }
+            return own ? SlotState.OWN_ROOM_2 : SlotState.ROOM_2;
+        }
+        return showsRaid(index, room) ? SlotState.RAID : SlotState.FREE;
+    }
+
+    /**
+     * Decides whether a block shows a raid. A raid is shown only where every room shown in the block
+     * is free, in both-room and single-room views alike: a reservation during a raid is still shown
+     * as the reservation. Must hold the Schedule lock.
+     *
+     * @param index The index of the time block in the schedule.
+     * @param room  The room shown, or 0 for both rooms.
+     * @return true if the block shows a raid.
+     */
+    private static boolean showsRaid(int index, int room) {
+        return Schedule.raids[index]
+                && (room == 2 || Schedule.pr1schedule[index] == null)
+                && (room == 1 || Schedule.pr2schedule[index] == null);
+    }
+
+    /**
+     * Copies the neutral colors of the slots changed since baseVersion, or of every slot when the
+     * schedule no longer knows what changed. Must hold the base lock and the Schedule lock.
+     *
+     * @return true if the whole base layer has to be redrawn.
+     */
+    private static boolean snapshotChangedSlots() {
+        Arrays.fill(changedSlots, false);
+        boolean redrawAll = !Schedule.markChangedSlots(baseVersion, changedSlots);
+        for (int index = 0; index < slotColors.length; index++) {
+            if (redrawAll || changedSlots[index]) {
+                slotColors[index] = determineColor(index, null);
+            }
+        }
+        return redrawAll;
+    }
+
+    /**
+     * Repaints the changed slots of the base layer from their copied colors. Must hold the base lock.
+     */
+    private static void repaintChangedSlots() {
+        for (int index = 0; index < changedSlots.length; index++) {
+            if (changedSlots[index]) {
+                fillBlock(baseLayer, (index + 39) / 48, (index + 39) % 48, slotColors[index]);
+            }
+        }
+    }
+
+    /**
+     * Redraws the parts of the schedule image that are the same for every user from the copied colors
+     * of every slot. Must hold the base lock.
+     */
+    private static void drawBaseLayer() {
+        System.arraycopy(TEMPLATE, 0, baseLayer, 0, TEMPLATE.length);
 
         // Fill the blocks with transposed axes
         for (int day = 0; day < 8; day++) {
@@ -54,18 +319,34 @@ public class ScheduleVisualizer {
                 if (isValidTimeBlock(day, hour)) {
                     int color;
                     if (isBlackoutPeriod(day, hour)) {
-                        color = Color.BLACK.getRGB();
+                        color = SlotState.BLACKOUT.getRgb();
+                    } else if (index < slotColors.length) {
+                        color = slotColors[index];
                     } else {
-                        color = determineColor(index, requestingUser);
+                        color = SlotState.FREE.getRgb();
                     }
                     // Transposed filling of blocks
-                    fillBlock(graphics, day, hour, color);
+                    fillBlock(baseLayer, day, hour, color);
                 }
             }
         }
+    }
+
+    /**
+     * Draws the day and time labels on a black background.
+     *
+     * @return The pixels of the labels.
+     */
+    private static int[] drawTemplate() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setFont(LABEL_FONT);
+
+        drawDayLabels(graphics);
+        drawTimeLabels(graphics);
 
         graphics.dispose();
-        return image;
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
     }
 
     /**
@@ -94,7 +375,6 @@ public class ScheduleVisualizer {
      * @param graphics The Graphics2D object used to draw on the image.
      */
     private static void drawDayLabels(Graphics2D graphics) {
-        graphics.setFont(new Font("Arial", Font.PLAIN, 20));
         FontMetrics fm = graphics.getFontMetrics();
 
         for (int i = 0; i < DAYS.length; i++) {
@@ -117,7 +397,6 @@ public class ScheduleVisualizer {
      * @param graphics The Graphics2D object used to draw on the image.
      */
     private static void drawTimeLabels(Graphics2D graphics) {
-        graphics.setFont(new Font("Arial", Font.PLAIN, 20));
         for (int i = 0; i < 24; i++) {
             // Horizontal time labels at the top, displaying only hour numbers
             String timeLabel = String.format("%d", (i == 0 || i == 12) ? 12 : i % 12); // 12, 1, 2,...11, 12, 1, 2,...11
@@ -129,24 +408,35 @@ public class ScheduleVisualizer {
 
     /**
      * Fills a block with a specific color based on the reservation status.
+     * The block keeps the black outline and grid gap of the template around its colored square.
      *
-     * @param graphics The Graphics2D object used to draw on the image.
-     * @param day      The day (row) on which the block is located.
-     * @param hour     The hour (column) on which the block is located.
-     * @param color    The color to fill the block with.
+     * @param pixels The pixels of the image, WIDTH per row.
+     * @param day    The day (row) on which the block is located.
+     * @param hour   The hour (column) on which the block is located.
+     * @param color  The color to fill the block with, as 0xRRGGBB.
      */
-    private static void fillBlock(Graphics2D graphics, int day, int hour, int color) {
-        // Swap x and y in filling logic
-        int x = LABEL_WIDTH + hour * BLOCK_SIZE;
-        int y = (day + 1) * BLOCK_SIZE;
-
-        int blockSizeWithGap = BLOCK_SIZE - GRID_LINE_WIDTH;
-
-        graphics.setColor(new Color(color));
-        graphics.fillRect(x, y, blockSizeWithGap, blockSizeWithGap);
+    private static void fillBlock(int[] pixels, int day, int hour, int color) {
+        // Swap x and y in filling logic; skip the one-pixel outline
+        int x = LABEL_WIDTH + hour * BLOCK_SIZE + 1;
+        int y = (day + 1) * BLOCK_SIZE + 1;
+        fillRect(pixels, WIDTH, x, y, CELL_FILL, color);
+    }
 
-        graphics.setColor(Color.BLACK);
-        graphics.drawRect(x, y, blockSizeWithGap, blockSizeWithGap);
+    /**
+     * Fills a square of pixels with a color.
+     *
+     * @param pixels The pixels of the image.
+     * @param stride The width of the image.
+     * @param x      The left edge of the square.
+     * @param y      The top edge of the square.
+     * @param size   The side of the square.
+     * @param color  The color to fill the square with, as 0xRRGGBB.
+     */
+    private static void fillRect(int[] pixels, int stride, int x, int y, int size, int color) {
+        for (int row = y; row < y + size; row++) {
+            int start = row * stride + x;
+            Arrays.fill(pixels, start, start + size, color);
+        }
     }
 
     /**
@@ -168,9 +458,22 @@ public class ScheduleVisualizer {
      * @return The color to use for the block.
      */
     private static int determineColor(int index, String requestingUser) {
+        return determineState(index, requestingUser).getRgb();
+    }
+
+    /**
+     * Determines what a specific time block shows based on the reservation status.
+     * Shared with the text view, so both show the same state for every block. Callers should
+     * hold the Schedule lock.
+     *
+     * @param index          The index of the time block in the schedule.
+     * @param requestingUser The user for whom the schedule is being visualized, or null for a view without highlights.
+     * @return The state of the block.
+     */
+    static SlotState determineState(int index, String requestingUser) {
         // Check bounds of the arrays
         if (index < 0 || index >= Schedule.pr1schedule.length || index >= Schedule.raids.length) {
-            return Color.WHITE.getRGB(); // Return a default color for out-of-bounds index
+            return SlotState.FREE; // Return a default state for out-of-bounds index
         }
 
         String reservation1 = Schedule.pr1schedule[index];
@@ -178,27 +481,39 @@ public class ScheduleVisualizer {
 
         // Check if the timeslot is occupied by a recording session
         if (isRecordingSession(index)) {
-            return GREEN.getRGB();
+            return SlotState.RECORDING;
         }
-        if (requestingUser.equals(reservation1) && !requestingUser.equals(reservation2)) {
-            return PURPLE.getRGB();
+        if (requestingUser != null && requestingUser.equals(reservation1) && !requestingUser.equals(reservation2)) {
+            return SlotState.OWN_ROOM_1;
         }
-        if (requestingUser.equals(reservation2) && !requestingUser.equals(reservation1)) {
-            return PINK.getRGB();
+        if (requestingUser != null && requestingUser.equals(reservation2) && !requestingUser.equals(reservation1)) {
+            return SlotState.OWN_ROOM_2;
         }
         if (reservation1 != null && reservation2 != null) {
-            return BLUE.getRGB();
+            return SlotState.BOTH_ROOMS;
         }
         if (reservation1 != null) {
-            return RED.getRGB();
+            return SlotState.ROOM_1;
         }
         if (reservation2 != null) {
-            return YELLOW.getRGB();
+            return SlotState.ROOM_2;
         }
-        if (Schedule.raids[index] && Schedule.pr1schedule[index] == null) {
-            return ORANGE.getRGB();
+        if (showsRaid(index, 0)) {
+            return SlotState.RAID;
         }
-        return Color.WHITE.getRGB();
+        return SlotState.FREE;
+    }
+
+    /**
+     * Determines the highlight color of a time block for a user, matching determineColor.
+     *
+     * @param index          The index of the time block in the schedule.
+     * @param requestingUser The user for whom the schedule is being visualized.
+     * @return The user's highlight color if the block shows the user's reservation, NO_HIGHLIGHT if it looks the same for everyone.
+     */
+    private static int determineUserColor(int index, String requestingUser) {
+        SlotState state = determineState(index, requestingUser);
+        return state == SlotState.OWN_ROOM_1 || state == SlotState.OWN_ROOM_2 ? state.getRgb() : NO_HIGHLIGHT;
     }
 
     /**
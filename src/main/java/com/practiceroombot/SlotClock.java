@@ -0,0 +1,109 @@
+package com.practiceroombot;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+
+/**
+ * Maps real-world time onto the half-hour slots of the booking week.
+ * The booking week starts on Monday at 7:30 PM America/New_York. Its epoch-millisecond
+ * boundaries, including any daylight saving transition inside it, are computed once per
+ * week, so the current slot index is a subtraction and a division.
+ */
+public class SlotClock {
+
+    static final ZoneId ZONE = ZoneId.of("America/New_York");
+    static final LocalTime WEEK_START_TIME = LocalTime.of(19, 30); // Monday 7:30 PM
+    static final long SLOT_MILLIS = 30L * 60L * 1000L; // One half-hour slot
+
+    // Source of the current instant, replaceable for tests and benchmarks
+    private final Clock clock;
+
+    // Boundaries of the booking week the clock last observed
+    private volatile Week week;
+
+    /**
+     * Precomputed boundaries of one booking week.
+     *
+     * @param startMillis      Epoch milliseconds of the Monday 7:30 PM that opens the week.
+     * @param endMillis        Epoch milliseconds of the Monday 7:30 PM that closes the week.
+     * @param transitionMillis Epoch milliseconds of the DST transition inside the week, or Long.MAX_VALUE if none.
+     * @param shiftMillis      Change of the UTC offset at the transition, in milliseconds.
+     */
+    private record Week(long startMillis, long endMillis, long transitionMillis, long shiftMillis) {
+    }
+
+    /**
+     * Creates a slot clock driven by the system clock.
+     */
+    public SlotClock() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Creates a slot clock driven by the given clock.
+     *
+     * @param clock The clock providing the current instant.
+     */
+    public SlotClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Calculates the schedule index of the current half-hour slot.
+     * Wall-clock time is used, so the index jumps forward by two slots when clocks spring
+     * forward and repeats two slots when they fall back, exactly like the schedule labels.
+     *
+     * @return the index in the weekly schedule that corresponds to the current time.
+     */
+    public int currentIndex() {
+        long now = clock.millis();
+        Week current = week;
+        if (current == null || now < current.startMillis || now >= current.endMillis) {
+            current = computeWeek(now);
+            week = current;
+        }
+
+        long elapsed = now - current.startMillis;
+        if (now >= current.transitionMillis) {
+            elapsed += current.shiftMillis;
+        }
+        return (int) (elapsed / SLOT_MILLIS);
+    }
+
+    /**
+     * Computes the boundaries of the booking week containing the given instant.
+     *
+     * @param epochMillis The instant to locate.
+     * @return The booking week containing the instant.
+     */
+    private static Week computeWeek(long epochMillis) {
+        ZonedDateTime now = Instant.ofEpochMilli(epochMillis).atZone(ZONE);
+        LocalDate monday = now.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        ZonedDateTime start = ZonedDateTime.of(monday, WEEK_START_TIME, ZONE);
+        if (start.isAfter(now)) {
+            start = ZonedDateTime.of(monday.minusWeeks(1), WEEK_START_TIME, ZONE);
+        }
+        ZonedDateTime end = ZonedDateTime.of(start.toLocalDate().plusWeeks(1), WEEK_START_TIME, ZONE);
+
+        long startMillis = start.toInstant().toEpochMilli();
+        long endMillis = end.toInstant().toEpochMilli();
+
+        // America/New_York has at most one transition per week
+        long transitionMillis = Long.MAX_VALUE;
+        long shiftMillis = 0;
+        ZoneOffsetTransition transition = ZONE.getRules().nextTransition(start.toInstant());
+        if (transition != null && transition.toEpochSecond() * 1000L < endMillis) {
+            transitionMillis = transition.toEpochSecond() * 1000L;
+            shiftMillis = transition.getDuration().toMillis();
+        }
+
+        return new Week(startMillis, endMillis, transitionMillis, shiftMillis);
+    }
+}
@@ -0,0 +1,48 @@
+package com.practiceroombot;
+
+/**
+ * What a schedule slot shows to a user, with its color in the schedule image and its symbol in
+ * the text view, so both renderers share the same meaning for every color.
+ */
+public enum SlotState {
+    FREE(0xFFFFFF, "⬜", "free"),                        // White
+    RAID(0xFFA500, "🟧", "raid"),                        // Orange: affected by club events
+    RECORDING(0x008000, "🟩", "recording"),              // Green: recording session
+    ROOM_1(0xFF0000, "🟥", "room 1 taken"),              // Red: room 1 reserved
+    ROOM_2(0xFFFF00, "🟨", "room 2 taken"),              // Yellow: room 2 reserved
+    BOTH_ROOMS(0x0000FF, "🟦", "both taken"),            // Blue: both rooms reserved
+    OWN_ROOM_1(0x800080, "🟪", "yours in room 1"),       // Purple: user's reservation in room 1
+    OWN_ROOM_2(0xFFC0CB, "🌸", "yours in room 2"),       // Pink: user's reservation in room 2
+    BLACKOUT(0x000000, "⬛", "outside the booking week"); // Black: blackout period
+
+    private final int rgb;
+    private final String symbol;
+    private final String description;
+
+    SlotState(int rgb, String symbol, String description) {
+        this.rgb = rgb;
+        this.symbol = symbol;
+        this.description = description;
+    }
+
+    /**
+     * @return The color of the state in the schedule image, as 0xRRGGBB.
+     */
+    public int getRgb() {
+        return rgb;
+    }
+
+    /**
+     * @return The emoji showing the state in the text view.
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return A short description of the state for legends.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
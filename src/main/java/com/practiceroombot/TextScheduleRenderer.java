@@ -0,0 +1,95 @@
+package com.practiceroombot;
+
+/**
+ * Renders the schedule as emoji blocks in a code block, for quick questions that do not need an image.
+ * Each half-hour slot is one block with the same meaning as its color in the schedule image.
+ * The week view shows one line per day; the day view shows the day in four lines of six hours.
+ * No AWT is involved, so a text view costs a few microseconds.
+ */
+public class TextScheduleRenderer {
+
+    private static final String[] DAY_LABELS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+    private static final String[] QUARTER_LABELS = {"12a", " 6a", "12p", " 6p"};
+    private static final int SLOTS_PER_QUARTER = 12; // Six hours per line in the day view
+    private static final int SLOTS_PER_GROUP = 6;    // Three hours between spaces in the week view
+
+    // Hour labels over the groups of the week view; emoji are two columns wide in a code block
+    private static final String WEEK_HEADER = "    " + String.format("%-13s".repeat(8),
+            "12a", "3a", "6a", "9a", "12p", "3p", "6p", "9p").stripTrailing();
+
+    /**
+     * Renders the whole booking week.
+     *
+     * @param requestingUser The user whose reservations are highlighted, or null for a neutral view.
+     * @return The week as a code block followed by a legend.
+     */
+    public static String renderWeek(String requestingUser) {
+        StringBuilder text = new StringBuilder(2048).append("```\n");
+        text.append(WEEK_HEADER).append('\n');
+
+        // Hold the schedule lock so every line shows the same version
+        synchronized (Schedule.class) {
+            for (int day = 0; day < DAY_LABELS.length; day++) {
+                text.append(DAY_LABELS[day]).append(' ');
+                appendSlots(text, day, 0, Schedule.SLOTS_PER_DAY, SLOTS_PER_GROUP, requestingUser);
+                text.append('\n');
+            }
+        }
+
+        return text.append("```").append(legend(requestingUser)).toString();
+    }
+
+    /**
+     * Renders a single day of the booking week.
+     *
+     * @param day            The day, 0 for Monday through 6 for Sunday.
+     * @param requestingUser The user whose reservations are highlighted, or null for a neutral view.
+     * @return The day as a code block followed by a legend.
+     */
+    public static String renderDay(int day, String requestingUser) {
+        if (day < 0 || day >= DAY_LABELS.length) {
+            throw new IllegalArgumentException("Invalid day index: " + day);
+        }
+
+        StringBuilder text = new StringBuilder(512).append("```\n").append(DAY_LABELS[day]).append('\n');
+        synchronized (Schedule.class) {
+            for (int quarter = 0; quarter < QUARTER_LABELS.length; quarter++) {
+                text.append(QUARTER_LABELS[quarter]).append(' ');
+                appendSlots(text, day, quarter * SLOTS_PER_QUARTER, SLOTS_PER_QUARTER, 2, requestingUser);
+                text.append('\n');
+            }
+        }
+
+        return text.append("```").append(legend(requestingUser)).toString();
+    }
+
+    /**
+     * Appends the symbols of consecutive half-hour slots of a day, with a space after every group.
+     * Must hold the Schedule lock.
+     */
+    private static void appendSlots(StringBuilder text, int day, int firstSlot, int count, int groupSize, String requestingUser) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && i % groupSize == 0) {
+                text.append(' ');
+            }
+            // Monday before 7:30 PM maps to the end of the booking week, as in !reserve
+            int index = TimeIntegerizer.integerizeIndices(day, firstSlot + i);
+            text.append(ScheduleVisualizer.determineState(index, requestingUser).getSymbol());
+        }
+    }
+
+    /**
+     * Lists the symbols that can appear in a view.
+     */
+    private static String legend(String requestingUser) {
+        StringBuilder legend = new StringBuilder();
+        for (SlotState state : SlotState.values()) {
+            boolean ownState = state == SlotState.OWN_ROOM_1 || state == SlotState.OWN_ROOM_2;
+            if (state == SlotState.BLACKOUT || (ownState && requestingUser == null)) {
+                continue;
+            }
+            legend.append(legend.isEmpty() ? "" : "  ").append(state.getSymbol()).append(' ').append(state.getDescription());
+        }
+        return legend.toString();
+    }
+}
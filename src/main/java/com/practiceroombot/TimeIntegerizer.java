@@ -22,8 +22,19 @@ public class TimeIntegerizer {
         int dayIndex = convertDayToIndex(normalizedDay);
         int timeIndex = convertTimeToIndex(normalizedTime);
 
+        return integerizeIndices(dayIndex, timeIndex);
+    }
+
+    /**
+     * Converts an already parsed day and time into an index representing its position in the schedule.
+     *
+     * @param dayIndex  The index of the day in the week (0 for Monday through 6 for Sunday).
+     * @param timeIndex The half-hour index within the day (0-47).
+     * @return The index corresponding to the provided time and day in the schedule.
+     */
+    public static int integerizeIndices(int dayIndex, int timeIndex) {
         // Adjust for special cases involving Monday
-        return calculateFinalIndex(dayIndex, timeIndex) - 39;
+        return calculateFinalIndex(dayIndex, timeIndex) - MONDAY_EVENING_START_INDEX;
     }
 
     /**
@@ -0,0 +1,77 @@
+package com.practiceroombot;
+
+/**
+ * Token bucket rate limiter.
+ * The bucket holds up to a fixed number of tokens and refills continuously at a fixed rate;
+ * each admitted request takes one token.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Whether the owner has already been told about the current empty streak
+    private boolean warned;
+
+    /**
+     * Creates a full token bucket.
+     *
+     * @param capacity        The maximum number of tokens, i.e. the allowed burst.
+     * @param refillPerMinute The number of tokens added per minute.
+     * @param nowNanos        The current time from System.nanoTime().
+     */
+    public TokenBucket(double capacity, double refillPerMinute, long nowNanos) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / 60e9;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @param nowNanos The current time from System.nanoTime().
+     * @return true if a token was taken, false if the bucket is empty.
+     */
+    public synchronized boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            warned = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the current empty streak as reported.
+     *
+     * @return true the first time this is called after the bucket ran empty, false afterwards.
+     */
+    public synchronized boolean markWarned() {
+        boolean first = !warned;
+        warned = true;
+        return first;
+    }
+
+    /**
+     * Checks whether the bucket has refilled completely, meaning it no longer needs to be tracked.
+     *
+     * @param nowNanos The current time from System.nanoTime().
+     * @return true if the bucket is full.
+     */
+    public synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
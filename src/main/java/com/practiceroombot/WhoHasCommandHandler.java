@@ -1,49 +1,32 @@
 package com.practiceroombot;
 
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.Role;
-
-import java.util.List;
 
 public class WhoHasCommandHandler implements ICommandHandler {
 
     @Override
-    public void handleCommand(MessageReceivedEvent event, String[] parts) {
-        Member member = event.getMember();
-        if (member != null) {
-            List<Role> roles = member.getRoles();
-            boolean hasAccess = roles.stream().anyMatch(role -> role.getName().equalsIgnoreCase("practice room access"));
-
-            if (!hasAccess) {
-                event.getChannel().sendMessage(event.getAuthor().getAsMention() + "Failed: You do not have permission to use this command.").queue();
-                return;
-            }
-        }
-
-        // Check the correct number of parameters is provided
-        if (parts.length != 4) {
-            event.getChannel().sendMessage(event.getAuthor().getAsMention() + "Failed: Usage: !whohas <roomNumber> <day> <time>").queue();
+    public void handleCommand(MessageReceivedEvent event, CommandArguments args, CommandResponse response) {
+        response.markInformational(); // Sent after confirmations when the channel is busy
+        if (CommandHandlerUtilities.lacksPracticeRoomAccess(event)) {
+            response.reply(event.getAuthor().getAsMention() + "Failed: You do not have permission to use this command.");
             return;
         }
 
         try {
-            int roomNumber = Integer.parseInt(parts[1]);
-            String day = parts[2];
-            String time = parts[3];
-            int timeIndex = TimeIntegerizer.integerizeTime(time, day);
+            int roomNumber = args.getRoom(0);
+            String day = args.getText(1);
+            String time = args.getText(2);
+            int timeIndex = args.getSlotIndex(1, 2);
 
             String reservation = Schedule.getReservation(roomNumber, timeIndex);
-            String response = reservation != null ? reservation + " has room " + roomNumber + " reserved on " + day + " " +
+            String answer = reservation != null ? reservation + " has room " + roomNumber + " reserved on " + day + " " +
                     "at " + time + ".": "Room " + roomNumber + " is vacant at " + time + " on " + day + ".";
 
-            event.getChannel().sendMessage(event.getAuthor().getAsMention() + " " + response).queue();
-        } catch (NumberFormatException e) {
-            event.getChannel().sendMessage(event.getAuthor().getAsMention() + "Failed: Invalid number or time format.").queue();
+            response.reply(event.getAuthor().getAsMention() + " " + answer);
         } catch (IllegalArgumentException e) {
-            event.getChannel().sendMessage(event.getAuthor().getAsMention() + "Failed: " + e.getMessage()).queue();
+            response.reply(event.getAuthor().getAsMention() + "Failed: " + e.getMessage());
         } catch (Exception e) {
-            event.getChannel().sendMessage(event.getAuthor().getAsMention() + "Failed: An unexpected error occurred: " + e.getMessage()).queue();
+            response.reply(event.getAuthor().getAsMention() + "Failed: An unexpected error occurred: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,104 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void testRenderBurstIsLimitedPerUser() {
+        AdmissionController controller = new AdmissionController(5, 0, 2, 0, 100);
+
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.RENDER));
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.RENDER));
+        assertEquals(AdmissionController.Decision.RATE_LIMITED, controller.admit(1L, CostClass.RENDER));
+        assertEquals(AdmissionController.Decision.DROPPED, controller.admit(1L, CostClass.RENDER));
+
+        // Text commands and other users have their own buckets
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.TEXT));
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(2L, CostClass.RENDER));
+
+        assertEquals(3, controller.getDecisionCount(CostClass.RENDER, AdmissionController.Decision.ADMITTED));
+        assertEquals(1, controller.getDecisionCount(CostClass.RENDER, AdmissionController.Decision.DROPPED));
+    }
+
+    @Test
+    public void testGlobalLimitShedsLoad() {
+        AdmissionController controller = new AdmissionController(5, 0, 5, 0, 2);
+
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.TEXT));
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(2L, CostClass.TEXT));
+        assertEquals(AdmissionController.Decision.BUSY, controller.admit(3L, CostClass.TEXT));
+
+        controller.release();
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(3L, CostClass.TEXT));
+        assertEquals(2, controller.getInFlight());
+    }
+
+    @Test
+    public void testBusyRejectionDoesNotSpendUserTokens() {
+        AdmissionController controller = new AdmissionController(1, 0, 1, 0, 1);
+
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.TEXT));
+        assertEquals(AdmissionController.Decision.BUSY, controller.admit(2L, CostClass.TEXT));
+        controller.release();
+
+        // User 2's only token is still there once the load has passed
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(2L, CostClass.TEXT));
+
+        // A rate limited command gives its global slot back
+        controller.release();
+        assertEquals(AdmissionController.Decision.RATE_LIMITED, controller.admit(2L, CostClass.TEXT));
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    public void testChargeSpendsRenderTokensWithoutClaimingASlot() {
+        AdmissionController controller = new AdmissionController(5, 0, 1, 0, 1);
+
+        // A display command is admitted as text and pays for its image afterwards
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.TEXT));
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.charge(1L, CostClass.RENDER));
+        assertEquals(AdmissionController.Decision.RATE_LIMITED, controller.charge(1L, CostClass.RENDER));
+        assertEquals(AdmissionController.Decision.DROPPED, controller.charge(1L, CostClass.RENDER));
+        assertEquals(1, controller.getInFlight());
+
+        // Text commands are not held back by an empty render bucket
+        controller.release();
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(1L, CostClass.TEXT));
+        assertEquals(1, controller.getDecisionCount(CostClass.RENDER, AdmissionController.Decision.ADMITTED));
+    }
+
+    @Test
+    public void testBucketRefillsOverTime() {
+        TokenBucket bucket = new TokenBucket(1, 60, 0L);
+        assertTrue(bucket.tryAcquire(0L));
+        assertFalse(bucket.tryAcquire(500_000_000L));
+        assertTrue(bucket.tryAcquire(1_000_000_000L));
+    }
+
+    @Test
+    public void testTrackedUsersAreCapped() {
+        AdmissionController controller = new AdmissionController(5, 0, 2, 0, Integer.MAX_VALUE);
+        for (long user = 0; user < AdmissionController.MAX_TRACKED_USERS; user++) {
+            assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(user, CostClass.TEXT));
+        }
+
+        // No tracked user is idle, so a new one is turned away while tracked users carry on
+        assertEquals(AdmissionController.Decision.BUSY, controller.admit(-1L, CostClass.TEXT));
+        assertEquals(AdmissionController.Decision.BUSY, controller.charge(-1L, CostClass.RENDER));
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(0L, CostClass.TEXT));
+    }
+
+    @Test
+    public void testIdleUsersArePrunedForNewUsers() {
+        // Buckets refill almost at once, so every tracked user is idle by the time the next one arrives
+        AdmissionController controller = new AdmissionController(1, 1e12, 1, 1e12, Integer.MAX_VALUE);
+        for (long user = 0; user < AdmissionController.MAX_TRACKED_USERS; user++) {
+            controller.admit(user, CostClass.TEXT);
+        }
+
+        assertEquals(AdmissionController.Decision.ADMITTED, controller.admit(-1L, CostClass.TEXT));
+    }
+}
@@ -0,0 +1,93 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CommandExecutorTest {
+
+    @Test
+    public void testCommandsOfOneUserRunInOrder() throws InterruptedException {
+        CommandExecutor executor = new CommandExecutor(Executors.newFixedThreadPool(8));
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int command = i;
+            executor.submit(42L, () -> {
+                order.add(command);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testSlowCommandDoesNotBlockOtherUsers() throws InterruptedException {
+        CommandExecutor executor = new CommandExecutor(Executors.newFixedThreadPool(2));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherUserDone = new CountDownLatch(1);
+
+        executor.submit(1L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.submit(2L, otherUserDone::countDown);
+
+        assertTrue(otherUserDone.await(5, TimeUnit.SECONDS));
+        // The other user's mailbox is removed right after their command returns
+        assertTrue(awaitActiveUsers(executor, 1));
+        release.countDown();
+        assertTrue(awaitActiveUsers(executor, 0));
+    }
+
+    @Test
+    public void testErrorInCommandDoesNotStrandLaterCommands() throws InterruptedException {
+        CommandExecutor executor = new CommandExecutor(Executors.newFixedThreadPool(2));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch laterDone = new CountDownLatch(1);
+
+        executor.submit(7L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new AssertionError("Simulated handler error");
+        });
+        executor.submit(7L, laterDone::countDown);
+        release.countDown();
+
+        assertTrue(laterDone.await(5, TimeUnit.SECONDS));
+        assertTrue(awaitActiveUsers(executor, 0));
+    }
+
+    /**
+     * Waits until the executor reports the given number of active users, since mailboxes close
+     * on the worker thread just after the last command returns.
+     */
+    private static boolean awaitActiveUsers(CommandExecutor executor, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.activeUsers() != expected) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CommandGrammarTest {
+
+    private final CommandHandlerFactory factory = new CommandHandlerFactory();
+
+    private CommandArguments parse(String message) {
+        int nameEnd = CommandTokenizer.tokenEnd(message, 1);
+        CommandSpec spec = factory.getSpec(message, 1, nameEnd);
+        assertNotNull("Unknown command in " + message, spec);
+        return spec.parseArguments(message, nameEnd);
+    }
+
+    @Test
+    public void testLookupIsCaseInsensitive() {
+        assertNotNull(factory.getSpec("!ReSeRvE 1", 1, 8));
+        assertNotNull(factory.getHandler("whohas"));
+        assertNull(factory.getHandler("reserv"));
+        assertNull(factory.getHandler("reserves"));
+        assertNull(factory.getHandler(""));
+    }
+
+    @Test
+    public void testReserveArgumentsAreTyped() {
+        CommandArguments args = parse("!reserve  2 Thursday 8:30pm 1.5");
+        assertNull(args.getError());
+        assertEquals(2, args.getRoom(0));
+        assertEquals(3, args.getDayIndex(1));
+        assertEquals(41, args.getTimeIndex(2));
+        assertEquals(1.5, args.getDuration(3), 0.0);
+        assertEquals(TimeIntegerizer.integerizeTime("8:30pm", "thursday"), args.getSlotIndex(1, 2));
+        assertEquals("Thursday", args.getText(1));
+    }
+
+    @Test
+    public void testTimeFormatsMatchTimeIntegerizer() {
+        String[] times = {"8", "8:30", "8a", "8p", "8am", "8:30PM", "12am", "12pm", "12:30a", "20:00", "0:30", "11:30pm"};
+        for (String time : times) {
+            int index = CommandTokenizer.parseTime(time, 0, time.length());
+            assertEquals(time, TimeIntegerizer.convertTimeToIndex(time), index);
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedArguments() {
+        assertEquals("Invalid room number: Must be either 1 or 2.", parse("!cancel 3 monday 8pm").getError());
+        assertEquals("Invalid day: funday", parse("!cancel 1 funday 8pm").getError());
+        assertEquals("Invalid time format: 8:15pm", parse("!cancel 1 monday 8:15pm").getError());
+        assertEquals("Invalid time format: 13pm", parse("!cancel 1 monday 13pm").getError());
+        assertEquals("Invalid duration: -1", parse("!reserve 1 monday 8pm -1").getError());
+        assertTrue(parse("!cancel 1 monday").getError().startsWith("Usage: "));
+        assertTrue(parse("!cancel 1 monday 8pm extra").getError().startsWith("Usage: "));
+    }
+
+    @Test
+    public void testOptionalAndLenientArguments() {
+        CommandArguments debug = parse("!debug 2 tue 9am");
+        assertNull(debug.getError());
+        assertEquals(3, debug.size());
+        assertTrue(debug.isWord(0, "2"));
+
+        assertNull(parse("!debug 1").getError());
+        assertNull(parse("!display please").getError());
+    }
+
+    @Test
+    public void testDayPrefixes() {
+        assertEquals(0, CommandTokenizer.parseDay("Mon", 0, 3));
+        assertEquals(3, CommandTokenizer.parseDay("thurs", 0, 5));
+        assertEquals(6, CommandTokenizer.parseDay("SUNDAY,", 0, 7));
+        assertEquals(-1, CommandTokenizer.parseDay("t", 0, 1));
+        assertEquals(-1, CommandTokenizer.parseDay("mondays", 0, 7));
+    }
+}
@@ -0,0 +1,49 @@
+package com.practiceroombot;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlightRecordingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDumpContainsMutationsAndRenders() throws Exception {
+        FlightRecording recording = new FlightRecording(Duration.ofMinutes(5), 16L * 1024L * 1024L, folder.getRoot().toPath()).start();
+        Path dump;
+        try {
+            Schedule.resetCalendar();
+            Schedule.addReservation(1, "alice", 30, 1.5);
+            Schedule.addReservation(1, "bob", 30, 1);
+            ScheduleVisualizer.generateScheduleImage("alice");
+            dump = recording.dump();
+        } finally {
+            recording.close();
+            Schedule.resetCalendar();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        List<RecordedEvent> reservations = events.stream()
+                .filter(event -> event.getEventType().getName().equals("practiceroombot.ScheduleMutation"))
+                .filter(event -> event.getString("operation").equals("addReservation"))
+                .toList();
+        assertEquals(2, reservations.size());
+        assertEquals("changed", reservations.get(0).getString("outcome"));
+        assertEquals(30, reservations.get(0).getInt("startSlot"));
+        assertEquals(33, reservations.get(0).getInt("endSlot"));
+        assertEquals("rejected", reservations.get(1).getString("outcome"));
+
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("practiceroombot.ScheduleRender")
+                && "alice".equals(event.getString("user"))));
+    }
+}
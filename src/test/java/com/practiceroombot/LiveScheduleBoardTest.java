@@ -0,0 +1,94 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LiveScheduleBoardTest {
+
+    private static final long PINNED_BOARD_ID = 77;
+    private static final long NEW_BOARD_ID = 88;
+
+    private final List<OutboundMessage> requests = Collections.synchronizedList(new ArrayList<>());
+    private volatile long pinnedBoardId;
+
+    // Answers lookups and posts the way Discord would and records every request
+    private final OutboundDispatcher dispatcher = new OutboundDispatcher(message -> {
+        requests.add(message);
+        if (message.getKind() == OutboundMessage.Kind.FIND_PINNED) {
+            message.getResult().complete(pinnedBoardId);
+        } else if (message.getKind() == OutboundMessage.Kind.SEND) {
+            message.getResult().complete(NEW_BOARD_ID);
+        }
+        return null;
+    }).start();
+
+    private final LiveScheduleBoard board = new LiveScheduleBoard(dispatcher);
+
+    @After
+    public void tearDown() {
+        dispatcher.stop();
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testPinnedBoardIsFoundAndEdited() {
+        pinnedBoardId = PINNED_BOARD_ID;
+        board.update(channel(1));
+
+        assertEquals(List.of(OutboundMessage.Kind.FIND_PINNED, OutboundMessage.Kind.EDIT), kinds());
+        assertEquals(LiveScheduleBoard.BOARD_TITLE, requests.get(0).getContent());
+        assertEquals(PINNED_BOARD_ID, requests.get(1).getTargetMessageId());
+        assertEquals(1, requests.get(1).getAttachments().size());
+    }
+
+    @Test
+    public void testBoardIsCreatedAndPinnedWhenNoneIsPinned() throws InterruptedException {
+        board.update(channel(1));
+
+        // The pin is queued after the post without waiting for it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of(OutboundMessage.Kind.FIND_PINNED, OutboundMessage.Kind.SEND, OutboundMessage.Kind.PIN), kinds());
+        assertEquals(LiveScheduleBoard.BOARD_TITLE, requests.get(1).getContent());
+        assertEquals(OutboundPriority.IMAGE, requests.get(1).getPriority());
+        assertEquals(NEW_BOARD_ID, requests.get(2).getTargetMessageId());
+    }
+
+    @Test
+    public void testUnchangedScheduleIsNotEditedAgain() {
+        pinnedBoardId = PINNED_BOARD_ID;
+        MessageChannel channel = channel(1);
+        board.update(channel);
+        board.update(channel);
+        assertEquals(2, requests.size());
+
+        Schedule.addReservation(1, "alice", 30, 1);
+        board.update(channel);
+        assertEquals(List.of(OutboundMessage.Kind.FIND_PINNED, OutboundMessage.Kind.EDIT, OutboundMessage.Kind.EDIT), kinds());
+        assertEquals(PINNED_BOARD_ID, requests.get(2).getTargetMessageId());
+    }
+
+    private List<OutboundMessage.Kind> kinds() {
+        synchronized (requests) {
+            return requests.stream().map(OutboundMessage::getKind).toList();
+        }
+    }
+
+    private static MessageChannel channel(long id) {
+        MessageChannel channel = mock(MessageChannel.class);
+        when(channel.getIdLong()).thenReturn(id);
+        return channel;
+    }
+}
@@ -0,0 +1,484 @@
+package com.practiceroombot;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test harness that drives a CommandListener offline.
+ * Messages from simulated users are delivered on a single thread, like JDA's event thread, as real
+ * MessageReceivedEvents backed by stand-in users, messages and channels. Responses are sent through
+ * the real coalescer and dispatcher to a LocalRestEndpoint enforcing Discord's per-channel bucket.
+ * The latency of a command runs from its delivery to the listener until its response is queued
+ * with the coalescer, so it excludes the coalescing window and the REST bucket. Coalescing is
+ * measured separately as the number of outbound messages the responses were merged into; the
+ * harness also reports throughput and the allocation rate of the whole JVM.
+ *
+ * Run it from the command line with a synthetic workload, the Monday rollover burst or a recorded trace:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.cleanupDaemonThreads=false \
+ *     -Dexec.mainClass=com.practiceroombot.LoadHarness -Dexec.args="--users 2000 --commands 5"
+ * </pre>
+ * Trace files have one command per line, "offsetMillis userId message", or "offsetMillis reset" for the weekly reset.
+ */
+public class LoadHarness {
+
+    static final String CHANNEL_ID = "1166092015465922693";
+
+    /**
+     * One line of a trace.
+     *
+     * @param offsetMillis When the command arrives, relative to the start of the trace.
+     * @param userId       The ID of the user sending it, or -1 for the weekly reset.
+     * @param message      The message text, or null for the weekly reset.
+     */
+    record TraceEntry(long offsetMillis, long userId, String message) {
+
+        static TraceEntry reset(long offsetMillis) {
+            return new TraceEntry(offsetMillis, -1, null);
+        }
+
+        boolean isReset() {
+            return message == null;
+        }
+    }
+
+    /**
+     * Results of a run.
+     */
+    static final class Report {
+        int commands;
+        int responded;
+        long dropped;
+        long[] latencyNanos;
+        long elapsedNanos;
+        long allocatedBytes;
+        String admission;
+        int delivered;
+        int rejected;
+        int outboundMessages;
+
+        long percentile(double p) {
+            if (latencyNanos.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100.0 * latencyNanos.length) - 1;
+            return latencyNanos[Math.max(0, Math.min(rank, latencyNanos.length - 1))];
+        }
+
+        String describe() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%d commands in %.2f s: %.0f commands/s, %d responses queued, %d dropped%n",
+                    commands, seconds, commands / seconds, responded, dropped)
+                    + String.format("Latency to queued response: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                    percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6, percentile(99.9) / 1e6, percentile(100) / 1e6)
+                    + String.format("Allocated %.1f MB, %.1f MB/s, %.1f KB per command%n",
+                    allocatedBytes / 1e6, allocatedBytes / 1e6 / seconds, allocatedBytes / 1024.0 / commands)
+                    + "Coalescing: " + responded + " responses merged into " + outboundMessages + " messages\n"
+                    + "Stand-in REST endpoint: " + delivered + " messages delivered, " + rejected + " rejected with 429\n"
+                    + "Admission control:\n" + admission;
+        }
+    }
+
+    /**
+     * Coalescer that records when each command's response is queued.
+     * Every message gets its own stand-in channel object, so the channel identifies the command.
+     * All stand-ins report the command channel's ID, which is what the coalescer and the dispatcher
+     * key on, so responses are still merged and rate limited per channel as in production.
+     */
+    private static final class TimingCoalescer extends ResponseCoalescer {
+        private final Map<MessageChannel, Integer> commandByChannel;
+        private final long[] queuedNanos;
+        private final AtomicInteger responded = new AtomicInteger();
+
+        TimingCoalescer(long windowMillis, OutboundDispatcher dispatcher, Map<MessageChannel, Integer> commandByChannel, long[] queuedNanos) {
+            super(windowMillis, dispatcher);
+            this.commandByChannel = commandByChannel;
+            this.queuedNanos = queuedNanos;
+        }
+
+        @Override
+        public void submit(CommandResponse response) {
+            long now = System.nanoTime();
+            Integer command = commandByChannel.get(response.getChannel());
+            if (command != null && queuedNanos[command] == 0) {
+                queuedNanos[command] = now;
+                responded.incrementAndGet();
+            }
+            super.submit(response);
+        }
+    }
+
+    /**
+     * Measures allocation across the JVM as the heap growth plus everything garbage collections reclaimed.
+     */
+    private static final class AllocationMeter implements NotificationListener {
+        private final AtomicLong reclaimed = new AtomicLong();
+        private long startUsed;
+
+        void start() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+            }
+            startUsed = heapUsed();
+        }
+
+        long stop() {
+            long allocated = reclaimed.get() + heapUsed() - startUsed;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                try {
+                    ((NotificationEmitter) collector).removeNotificationListener(this);
+                } catch (Exception e) {
+                    // Already removed
+                }
+            }
+            return allocated;
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long before = 0;
+            long after = 0;
+            for (MemoryUsage usage : info.getGcInfo().getMemoryUsageBeforeGc().values()) {
+                before += usage.getUsed();
+            }
+            for (MemoryUsage usage : info.getGcInfo().getMemoryUsageAfterGc().values()) {
+                after += usage.getUsed();
+            }
+            reclaimed.addAndGet(before - after);
+        }
+
+        private static long heapUsed() {
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    /**
+     * Creates a stand-in implementing a JDA interface with fixed answers.
+     * Any method without an answer throws, so handlers relying on unsimulated behaviour are noticed.
+     */
+    private static <T> T standIn(Class<T> type, Map<String, Object> answers) {
+        Object proxy = Proxy.newProxyInstance(LoadHarness.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            String name = method.getName();
+            if (answers.containsKey(name)) {
+                return answers.get(name);
+            }
+            return switch (name) {
+                case "hashCode" -> System.identityHashCode(self);
+                case "equals" -> self == args[0];
+                case "toString" -> type.getSimpleName() + answers;
+                default -> throw new UnsupportedOperationException("Not simulated: " + type.getSimpleName() + "." + name);
+            };
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Creates a synthetic workload: each user sends a mix of displays, reservations, cancellations,
+     * lookups, help requests and malformed commands at random times within the spread.
+     *
+     * @param users           The number of simulated users.
+     * @param commandsPerUser The number of commands each user sends.
+     * @param spreadMillis    The length of the period the commands arrive in.
+     * @param seed            The random seed, so runs can be repeated.
+     * @return The trace, ordered by arrival time.
+     */
+    static List<TraceEntry> syntheticTrace(int users, int commandsPerUser, long spreadMillis, long seed) {
+        String[] days = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+        String[] times = {"10am", "12pm", "2pm", "4pm", "6pm", "7pm", "8:30pm", "9pm", "10pm"};
+        Random random = new Random(seed);
+        List<TraceEntry> trace = new ArrayList<>();
+        for (int user = 1; user <= users; user++) {
+            for (int i = 0; i < commandsPerUser; i++) {
+                String day = days[random.nextInt(days.length)];
+                String time = times[random.nextInt(times.length)];
+                int room = 1 + random.nextInt(2);
+                int kind = random.nextInt(100);
+                String message;
+                if (kind < 30) {
+                    message = "!display";
+                } else if (kind < 40) {
+                    message = random.nextBoolean() ? "!display text " + day : "!display " + day + " 6pm-11pm";
+                } else if (kind < 65) {
+                    message = "!reserve " + room + " " + day + " " + time + " " + (random.nextBoolean() ? "1" : "1.5");
+                } else if (kind < 75) {
+                    message = "!cancel " + room + " " + day + " " + time;
+                } else if (kind < 85) {
+                    message = "!whohas " + room + " " + day + " " + time;
+                } else if (kind < 90) {
+                    message = "!phelp";
+                } else {
+                    String[] malformed = {"!reserve 3 " + day + " " + time + " 1", "!reserve 1 funday 8pm 1",
+                            "!cancel 1 " + day + " 8:15pm", "!reserv 1 " + day + " " + time + " 1", "!display banana"};
+                    message = malformed[random.nextInt(malformed.length)];
+                }
+                trace.add(new TraceEntry((long) (random.nextDouble() * spreadMillis), user, message));
+            }
+        }
+        trace.sort((a, b) -> Long.compare(a.offsetMillis(), b.offsetMillis()));
+        return trace;
+    }
+
+    /**
+     * Creates the Monday rollover burst: the weekly reset, followed within the burst period by every
+     * user trying to book one of the popular evening slots, and most of them checking the schedule afterwards.
+     *
+     * @param users       The number of simulated users.
+     * @param burstMillis The length of the burst.
+     * @param seed        The random seed, so runs can be repeated.
+     * @return The trace, ordered by arrival time.
+     */
+    static List<TraceEntry> mondayRolloverTrace(int users, long burstMillis, long seed) {
+        String[] days = {"tuesday", "wednesday", "thursday"};
+        String[] times = {"6pm", "7pm", "8pm", "9pm"};
+        Random random = new Random(seed);
+        List<TraceEntry> trace = new ArrayList<>();
+        trace.add(TraceEntry.reset(0));
+        for (int user = 1; user <= users; user++) {
+            // Arrivals bunch up right after the reset
+            long offset = 1 + (long) (Math.pow(random.nextDouble(), 3) * burstMillis);
+            trace.add(new TraceEntry(offset, user, "!reserve " + (1 + random.nextInt(2)) + " " + days[random.nextInt(days.length)]
+                    + " " + times[random.nextInt(times.length)] + " 1.5"));
+            if (random.nextInt(4) != 0) {
+                trace.add(new TraceEntry(offset + 200 + random.nextInt(1000), user, "!display"));
+            }
+        }
+        trace.sort((a, b) -> Long.compare(a.offsetMillis(), b.offsetMillis()));
+        return trace;
+    }
+
+    /**
+     * Reads a recorded trace.
+     *
+     * @param file The trace file.
+     * @return The trace, ordered by arrival time.
+     * @throws IOException If the file cannot be read.
+     */
+    static List<TraceEntry> readTrace(Path file) throws IOException {
+        List<TraceEntry> trace = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+", 3);
+            try {
+                if (parts.length == 2 && parts[1].equals("reset")) {
+                    trace.add(TraceEntry.reset(Long.parseLong(parts[0])));
+                } else if (parts.length == 3) {
+                    trace.add(new TraceEntry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                } else {
+                    throw new IllegalArgumentException("expected 'offsetMillis userId message' or 'offsetMillis reset'");
+                }
+            } catch (IllegalArgumentException e) {
+                // Also catches NumberFormatException
+                throw new IllegalArgumentException(file + " line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        trace.sort((a, b) -> Long.compare(a.offsetMillis(), b.offsetMillis()));
+        return trace;
+    }
+
+    /**
+     * Replays a trace against a freshly wired listener.
+     *
+     * @param trace      The commands to send.
+     * @param speed      How much faster than recorded to replay, or 0 to send everything as fast as possible.
+     * @param properties The bot configuration; load.restLimit and load.restWindowMillis (default 5 per 5000)
+     *                   set the stand-in endpoint's bucket.
+     * @return The results.
+     * @throws InterruptedException If interrupted while waiting for responses.
+     */
+    static Report run(List<TraceEntry> trace, double speed, Properties properties) throws InterruptedException {
+        LocalRestEndpoint endpoint = new LocalRestEndpoint(Integer.parseInt(properties.getProperty("load.restLimit", "5")),
+                Long.parseLong(properties.getProperty("load.restWindowMillis", "5000")), System::currentTimeMillis);
+        OutboundDispatcher dispatcher = new OutboundDispatcher(endpoint).start();
+        AdmissionController admissionController = AdmissionController.fromProperties(properties);
+
+        // Build every event up front, so the stand-ins cost nothing during the run
+        Map<Long, User> users = new HashMap<>();
+        Map<MessageChannel, Integer> commandByChannel = new IdentityHashMap<>();
+        MessageReceivedEvent[] events = new MessageReceivedEvent[trace.size()];
+        for (int i = 0; i < trace.size(); i++) {
+            TraceEntry entry = trace.get(i);
+            if (entry.isReset()) {
+                continue;
+            }
+            User user = users.computeIfAbsent(entry.userId(), id -> standIn(User.class, Map.of(
+                    "isBot", false, "getIdLong", id, "getId", Long.toString(id),
+                    "getName", "user" + id, "getAsMention", "<@" + id + ">")));
+            MessageChannelUnion channel = standIn(MessageChannelUnion.class, Map.of(
+                    "getId", CHANNEL_ID, "getIdLong", Long.parseLong(CHANNEL_ID), "getName", "practice-rooms"));
+            Map<String, Object> answers = new HashMap<>(Map.of(
+                    "getIdLong", (long) i, "getChannel", channel, "getAuthor", user, "getContentRaw", entry.message()));
+            // Members are only known in guilds; without one, practice room access is unrestricted
+            answers.put("getMember", null);
+            events[i] = new MessageReceivedEvent(null, i, standIn(Message.class, answers));
+            commandByChannel.put(channel, i);
+        }
+
+        long[] receivedNanos = new long[trace.size()];
+        long[] queuedNanos = new long[trace.size()];
+        long coalesceMillis = Long.parseLong(properties.getProperty("responses.coalesceMillis", "250"));
+        TimingCoalescer coalescer = new TimingCoalescer(coalesceMillis, dispatcher, commandByChannel, queuedNanos);
+        CommandListener listener = new CommandListener(CHANNEL_ID, new CommandExecutor(), admissionController, coalescer);
+        ScheduleImageSender.setPublisher(SchedulePublisher.fromProperties(properties, dispatcher, null));
+
+        int commands = trace.size() - (int) trace.stream().filter(TraceEntry::isReset).count();
+        AllocationMeter meter = new AllocationMeter();
+        meter.start();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < trace.size(); i++) {
+                TraceEntry entry = trace.get(i);
+                if (speed > 0) {
+                    long due = start + (long) (entry.offsetMillis() * 1_000_000L / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                if (entry.isReset()) {
+                    new ScheduleResetTask().run();
+                    continue;
+                }
+                receivedNanos[i] = System.nanoTime();
+                listener.onMessageReceived(events[i]);
+            }
+
+            // Wait until every command has either queued its response or been dropped by admission control
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (coalescer.responded.get() + droppedCount(admissionController) < commands && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        } finally {
+            ScheduleImageSender.setPublisher(null);
+        }
+        long end = System.nanoTime();
+
+        Report report = new Report();
+        report.allocatedBytes = meter.stop();
+        report.commands = commands;
+        report.responded = coalescer.responded.get();
+        report.dropped = droppedCount(admissionController);
+        report.elapsedNanos = end - start;
+        report.admission = admissionController.describeStats();
+        long[] latencies = new long[report.responded];
+        int count = 0;
+        for (int i = 0; i < trace.size(); i++) {
+            if (queuedNanos[i] != 0 && count < latencies.length) {
+                latencies[count++] = queuedNanos[i] - receivedNanos[i];
+            }
+        }
+        report.latencyNanos = Arrays.copyOf(latencies, count);
+        Arrays.sort(report.latencyNanos);
+
+        // Let the open batches close, then count what the responses were merged into, sent or not
+        Thread.sleep(coalesceMillis + 100);
+        report.outboundMessages = endpoint.getDelivered().size() + dispatcher.getQueuedCount();
+
+        dispatcher.stop();
+        report.delivered = endpoint.getDelivered().size();
+        report.rejected = endpoint.getRejected();
+        return report;
+    }
+
+    private static long droppedCount(AdmissionController admissionController) {
+        long dropped = 0;
+        for (CostClass cost : CostClass.values()) {
+            dropped += admissionController.getDecisionCount(cost, AdmissionController.Decision.DROPPED);
+        }
+        return dropped;
+    }
+
+    /**
+     * Pins the slot clock to the start of the booking week, as at the Monday rollover.
+     */
+    private static void pinClockToRollover() {
+        ZonedDateTime rollover = ZonedDateTime.of(LocalDate.now(SlotClock.ZONE).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+                SlotClock.WEEK_START_TIME, SlotClock.ZONE);
+        RealTimeTracker.setSlotClock(new SlotClock(Clock.fixed(rollover.toInstant(), SlotClock.ZONE)));
+    }
+
+    /**
+     * Runs the harness from the command line.
+     * Options: --users N (default 1000), --commands N per user (default 5), --spread millis (default 10000),
+     * --rollover for the Monday rollover burst, --trace file to replay a recorded trace,
+     * --speed factor (default 1, 0 for as fast as possible) and --seed N.
+     * Bot configuration is taken from system properties, e.g. -Dresponses.coalesceMillis=0.
+     *
+     * @param args The command line options.
+     * @throws Exception If the trace cannot be read or the run is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        int users = 1000;
+        int commandsPerUser = 5;
+        long spreadMillis = 10_000;
+        double speed = 1;
+        long seed = 42;
+        boolean rollover = false;
+        Path traceFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--users" -> users = Integer.parseInt(args[++i]);
+                case "--commands" -> commandsPerUser = Integer.parseInt(args[++i]);
+                case "--spread" -> spreadMillis = Long.parseLong(args[++i]);
+                case "--speed" -> speed = Double.parseDouble(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--rollover" -> rollover = true;
+                case "--trace" -> traceFile = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<TraceEntry> trace;
+        if (traceFile != null) {
+            trace = readTrace(traceFile);
+        } else if (rollover) {
+            pinClockToRollover();
+            trace = mondayRolloverTrace(users, 3000, seed);
+        } else {
+            trace = syntheticTrace(users, commandsPerUser, spreadMillis, seed);
+        }
+
+        Schedule.resetCalendar();
+        System.out.print(run(trace, speed, System.getProperties()).describe());
+    }
+}
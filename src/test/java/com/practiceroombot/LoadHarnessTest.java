@@ -0,0 +1,77 @@
+package com.practiceroombot;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class LoadHarnessTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEveryCommandIsAnsweredOrDropped() throws Exception {
+        Schedule.resetCalendar();
+        Properties properties = new Properties();
+        properties.setProperty("load.restLimit", "1000");
+        properties.setProperty("load.restWindowMillis", "1000");
+
+        List<LoadHarness.TraceEntry> trace = LoadHarness.syntheticTrace(50, 4, 0, 7);
+        LoadHarness.Report report = LoadHarness.run(trace, 0, properties);
+
+        assertEquals(200, report.commands);
+        assertEquals(report.commands, report.responded + report.dropped);
+        assertEquals(report.responded, report.latencyNanos.length);
+        assertTrue(report.percentile(50) > 0);
+        assertTrue(report.percentile(50) <= report.percentile(99));
+
+        // Everything arrives at once, so responses share messages
+        assertTrue(report.outboundMessages > 0);
+        assertTrue(report.outboundMessages < report.responded);
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testRolloverBurstStartsWithReset() {
+        List<LoadHarness.TraceEntry> trace = LoadHarness.mondayRolloverTrace(100, 3000, 7);
+        assertTrue(trace.get(0).isReset());
+        assertTrue(trace.size() > 100);
+        for (int i = 1; i < trace.size(); i++) {
+            assertFalse(trace.get(i).isReset());
+            assertTrue(trace.get(i).offsetMillis() >= trace.get(i - 1).offsetMillis());
+        }
+    }
+
+    @Test
+    public void testTraceFileIsReadInArrivalOrder() throws Exception {
+        Path file = folder.newFile("trace.txt").toPath();
+        Files.writeString(file, String.join("\n",
+                "# Recorded Monday evening",
+                "",
+                "1500 7 !reserve 1 tuesday 8pm 1.5",
+                "0 reset",
+                "  900 8 !whohas 1 tuesday 8pm  "));
+
+        List<LoadHarness.TraceEntry> trace = LoadHarness.readTrace(file);
+        assertEquals(3, trace.size());
+        assertTrue(trace.get(0).isReset());
+        assertEquals(new LoadHarness.TraceEntry(900, 8, "!whohas 1 tuesday 8pm"), trace.get(1));
+        assertEquals(new LoadHarness.TraceEntry(1500, 7, "!reserve 1 tuesday 8pm 1.5"), trace.get(2));
+    }
+
+    @Test
+    public void testMalformedTraceLineIsReported() throws Exception {
+        Path file = folder.newFile("trace.txt").toPath();
+        Files.writeString(file, "0 7 !display\nsoon 8 !display\n");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> LoadHarness.readTrace(file));
+        assertTrue(e.getMessage(), e.getMessage().contains("line 2"));
+    }
+}
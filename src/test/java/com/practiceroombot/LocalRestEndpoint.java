@@ -0,0 +1,57 @@
+package com.practiceroombot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process stand-in for Discord's message REST endpoint.
+ * Each channel has a fixed-window bucket; requests beyond it are rejected the way Discord
+ * answers with a 429, and accepted requests report the bucket state like the rate limit headers.
+ */
+class LocalRestEndpoint implements OutboundTransport {
+
+    private final int limit;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    private final Map<Long, long[]> windows = new HashMap<>(); // channel ID -> {window start, requests used}
+    private final List<OutboundMessage> delivered = new ArrayList<>();
+    private int rejected;
+
+    LocalRestEndpoint(int limit, long windowMillis, LongSupplier clock) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized RateLimit send(OutboundMessage message) throws RateLimitedException {
+        long now = clock.getAsLong();
+        long[] window = windows.computeIfAbsent(message.getChannelId(), id -> new long[]{now, 0});
+        if (now - window[0] >= windowMillis) {
+            window[0] = now;
+            window[1] = 0;
+        }
+
+        long resetAfter = window[0] + windowMillis - now;
+        if (window[1] >= limit) {
+            rejected++;
+            throw new RateLimitedException(resetAfter);
+        }
+
+        window[1]++;
+        delivered.add(message);
+        return new RateLimit(limit, (int) (limit - window[1]), resetAfter);
+    }
+
+    synchronized List<OutboundMessage> getDelivered() {
+        return new ArrayList<>(delivered);
+    }
+
+    synchronized int getRejected() {
+        return rejected;
+    }
+}
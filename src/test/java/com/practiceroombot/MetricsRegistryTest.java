@@ -0,0 +1,74 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 1000, 123_456_789L, 1L << 39}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue("Value " + value + " above its bucket", value < LatencyHistogram.upperBoundOf(bucket));
+            assertTrue("Value " + value + " below its bucket", bucket == 0 || value >= LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000_000, histogram.valueAtPercentile(50), 5_000_000 * 0.07);
+        assertEquals(9_900_000, histogram.valueAtPercentile(99), 9_900_000 * 0.07);
+        assertEquals(0, new LatencyHistogram().valueAtPercentile(50));
+    }
+
+    @Test
+    public void testScrapeFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("bot_commands_total", "command", "reserve", "outcome", "admitted").add(3);
+        registry.histogram("bot_phase_seconds", "phase", "parse").record(2_000_000);
+        registry.gauge("bot_schedule_raid_slots", () -> 4);
+        registry.counter("bot_cache_hits_total", () -> 7, "cache", "render");
+
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("# TYPE bot_commands_total counter\n"
+                + "bot_commands_total{command=\"reserve\",outcome=\"admitted\"} 3\n"));
+        assertTrue(scrape.contains("# TYPE bot_phase_seconds summary\n"));
+        assertTrue(scrape.contains("bot_phase_seconds{phase=\"parse\",quantile=\"0.99\"} "));
+        assertTrue(scrape.contains("bot_phase_seconds_count{phase=\"parse\"} 1\n"));
+        assertTrue(scrape.contains("bot_schedule_raid_slots 4.0\n"));
+        assertTrue(scrape.contains("# TYPE bot_cache_hits_total counter\n"
+                + "bot_cache_hits_total{cache=\"render\"} 7\n"));
+    }
+
+    @Test
+    public void testBotMetricsCountDispatchAndAdmission() {
+        MetricsRegistry registry = new MetricsRegistry();
+        AdmissionController admissionController = new AdmissionController(5, 5, 1, 1, 10);
+        registry.registerBotMetrics(new OutboundDispatcher(message -> null), admissionController);
+        admissionController.charge(1, CostClass.RENDER);
+        admissionController.charge(1, CostClass.RENDER);
+
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("# TYPE bot_outbound_sent_total counter\n"));
+        assertTrue(scrape.contains("# TYPE bot_outbound_superseded_total counter\n"));
+        assertTrue(scrape.contains("# TYPE bot_admission_decisions_total counter\n"));
+        assertTrue(scrape.contains("bot_admission_decisions_total{cost=\"render\",decision=\"admitted\"} 1\n"));
+        assertTrue(scrape.contains("bot_admission_decisions_total{cost=\"render\",decision=\"rate_limited\"} 1\n"));
+    }
+
+    @Test
+    public void testRejectsMismatchedMetrics() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("bot_commands_total");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("bot_commands_total"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("bot_commands_total", "command"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class OutboundDispatcherTest {
+
+    private static OutboundMessage text(long channelId, OutboundPriority priority, String content) {
+        return new OutboundMessage(null, channelId, priority, content, List.of());
+    }
+
+    private static OutboundMessage image(long channelId, String view, long version) {
+        return new OutboundMessage(null, channelId, OutboundPriority.IMAGE, "",
+                List.of(new OutboundMessage.Attachment("schedule.png", new byte[1], view, version)));
+    }
+
+    @Test
+    public void testConfirmationsGoBeforeImagesAndInformation() {
+        AtomicLong now = new AtomicLong();
+        LocalRestEndpoint endpoint = new LocalRestEndpoint(5, 5000, now::get);
+        OutboundDispatcher dispatcher = new OutboundDispatcher(endpoint, now::get);
+
+        dispatcher.enqueue(text(1, OutboundPriority.INFORMATIONAL, "help"));
+        dispatcher.enqueue(image(1, "alice", 1));
+        dispatcher.enqueue(text(1, OutboundPriority.CONFIRMATION, "first"));
+        dispatcher.enqueue(text(1, OutboundPriority.CONFIRMATION, "second"));
+        while (dispatcher.dispatchNext()) {
+        }
+
+        List<OutboundMessage> delivered = endpoint.getDelivered();
+        assertEquals(4, delivered.size());
+        assertEquals("first", delivered.get(0).getContent());
+        assertEquals("second", delivered.get(1).getContent());
+        assertEquals(OutboundPriority.IMAGE, delivered.get(2).getPriority());
+        assertEquals("help", delivered.get(3).getContent());
+    }
+
+    @Test
+    public void testBucketIsNeverExceeded() {
+        AtomicLong now = new AtomicLong();
+        LocalRestEndpoint endpoint = new LocalRestEndpoint(5, 5000, now::get);
+        OutboundDispatcher dispatcher = new OutboundDispatcher(endpoint, now::get);
+
+        for (int i = 0; i < 12; i++) {
+            dispatcher.enqueue(text(1, OutboundPriority.CONFIRMATION, "reply " + i));
+        }
+        dispatcher.enqueue(text(2, OutboundPriority.CONFIRMATION, "other channel"));
+
+        // The first window allows five replies in channel 1; channel 2 has its own bucket
+        while (dispatcher.dispatchNext()) {
+        }
+        assertEquals(6, endpoint.getDelivered().size());
+        assertEquals(7, dispatcher.getQueuedCount());
+
+        now.addAndGet(5000);
+        while (dispatcher.dispatchNext()) {
+        }
+        now.addAndGet(5000);
+        while (dispatcher.dispatchNext()) {
+        }
+
+        assertEquals(13, endpoint.getDelivered().size());
+        assertEquals(0, endpoint.getRejected());
+    }
+
+    @Test
+    public void testRateLimitedMessageIsRetried() {
+        AtomicLong now = new AtomicLong();
+        // The endpoint allows fewer requests than the dispatcher assumes before its first report
+        LocalRestEndpoint endpoint = new LocalRestEndpoint(1, 1000, now::get);
+        OutboundDispatcher dispatcher = new OutboundDispatcher(endpoint, now::get);
+
+        dispatcher.enqueue(text(1, OutboundPriority.CONFIRMATION, "first"));
+        dispatcher.enqueue(text(1, OutboundPriority.CONFIRMATION, "second"));
+        while (dispatcher.dispatchNext()) {
+        }
+        assertEquals(1, endpoint.getDelivered().size());
+        assertEquals(1, dispatcher.getQueuedCount());
+
+        now.addAndGet(1000);
+        while (dispatcher.dispatchNext()) {
+        }
+        assertEquals("second", endpoint.getDelivered().get(1).getContent());
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+
+    @Test
+    public void testSupersededImagesAreDropped() {
+        AtomicLong now = new AtomicLong();
+        LocalRestEndpoint endpoint = new LocalRestEndpoint(5, 5000, now::get);
+        OutboundDispatcher dispatcher = new OutboundDispatcher(endpoint, now::get);
+
+        dispatcher.enqueue(image(1, "alice", 1));
+        dispatcher.enqueue(image(1, "bob", 1));
+        dispatcher.enqueue(image(1, "alice", 2));
+        dispatcher.enqueue(image(2, "alice", 1));
+
+        assertEquals(3, dispatcher.getQueuedCount());
+        assertEquals(1, dispatcher.getSupersededCount());
+
+        while (dispatcher.dispatchNext()) {
+        }
+        for (OutboundMessage message : endpoint.getDelivered()) {
+            OutboundMessage.Attachment attachment = message.getAttachments().get(0);
+            assertFalse(message.getChannelId() == 1 && attachment.scheduleView().equals("alice") && attachment.scheduleVersion() == 1);
+        }
+    }
+
+    @Test
+    public void testFailedSendIsNotCountedAsSent() {
+        AtomicLong now = new AtomicLong();
+        OutboundDispatcher dispatcher = new OutboundDispatcher(message -> {
+            if (message.getContent().equals("broken")) {
+                throw new IllegalStateException("Missing access");
+            }
+            return null;
+        }, now::get);
+
+        OutboundMessage broken = text(1, OutboundPriority.CONFIRMATION, "broken");
+        dispatcher.enqueue(broken);
+        dispatcher.enqueue(text(1, OutboundPriority.CONFIRMATION, "fine"));
+        while (dispatcher.dispatchNext()) {
+        }
+
+        assertEquals(1, dispatcher.getSentCount());
+        assertTrue(broken.getResult().isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,94 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class PalettePngEncoderTest {
+
+    private static BufferedImage imageWithColours(int width, int height, int colours) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, ((x / 3 + y) % colours) * 0x010203);
+            }
+        }
+        return image;
+    }
+
+    private static void assertRoundTrip(BufferedImage image, byte[] png) throws IOException {
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(image.getWidth(), decoded.getWidth());
+        assertEquals(image.getHeight(), decoded.getHeight());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(image.getRGB(x, y) & 0xFFFFFF, decoded.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    @Test
+    public void testFewColoursUseFourBitPalette() throws IOException {
+        // Odd width, so the last byte of each row holds a single pixel
+        BufferedImage image = imageWithColours(37, 11, 9);
+        byte[] png = new PalettePngEncoder(6).encode(image);
+
+        assertEquals(4, png[24]); // IHDR bit depth
+        assertEquals(3, png[25]); // IHDR colour type: indexed
+        assertRoundTrip(image, png);
+    }
+
+    @Test
+    public void testUpToTwoHundredFiftySixColoursUseEightBitPalette() throws IOException {
+        BufferedImage image = imageWithColours(64, 20, 200);
+        byte[] png = new PalettePngEncoder(1).encode(image);
+
+        assertEquals(8, png[24]);
+        assertEquals(3, png[25]);
+        assertRoundTrip(image, png);
+    }
+
+    @Test
+    public void testReusedScratchHandlesChangingWidthAndBitDepth() throws IOException {
+        PalettePngEncoder encoder = new PalettePngEncoder(6);
+        BufferedImage wide = imageWithColours(64, 20, 200);
+        BufferedImage narrow = imageWithColours(37, 11, 9);
+
+        // Each encoding leaves its scratch buffer in the pool for the next one
+        byte[] widePng = encoder.encode(wide);
+        byte[] narrowPng = encoder.encode(narrow);
+        byte[] widePngAgain = encoder.encode(wide);
+
+        assertEquals(8, widePng[24]);
+        assertEquals(4, narrowPng[24]);
+        assertRoundTrip(wide, widePng);
+        assertRoundTrip(narrow, narrowPng);
+        assertArrayEquals(widePng, widePngAgain);
+    }
+
+    @Test
+    public void testManyColoursFallBackToImageIo() throws IOException {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < 1600; i++) {
+            image.setRGB(i % 40, i / 40, i * 997);
+        }
+        byte[] png = new PalettePngEncoder(6).encode(image);
+
+        assertNotEquals(3, png[25]);
+        assertRoundTrip(image, png);
+    }
+
+    @Test
+    public void testScheduleImageRoundTrips() throws IOException {
+        Schedule.resetCalendar();
+        Schedule.addReservation(1, "alice", 10, 2);
+        BufferedImage image = ScheduleVisualizer.generateScheduleImage("alice");
+        assertRoundTrip(image, new PalettePngEncoder(6).encode(image));
+        Schedule.resetCalendar();
+    }
+}
@@ -0,0 +1,121 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class PermissionCacheTest {
+
+    private static final long OFFICER_ROLE = 100;
+    private static final long PRACTICE_ROOM_ROLE = 200;
+
+    private final AtomicLong now = new AtomicLong();
+    private final PermissionCache cache = new PermissionCache(new long[]{OFFICER_ROLE}, new long[]{PRACTICE_ROOM_ROLE},
+            TimeUnit.MINUTES.toMillis(2), now::get);
+
+    @Test
+    public void testRepeatedCheckIsServedFromCache() {
+        Member member = member(1, 7, List.of(OFFICER_ROLE));
+
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+        assertFalse(cache.hasPermission(member, PermissionCache.PRACTICE_ROOM));
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testRoleChangeCarriedByMemberResolvesAgain() {
+        List<Long> roles = new ArrayList<>(List.of(OFFICER_ROLE));
+        Member member = member(1, 7, roles);
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+
+        // The officer role is removed; the member's next command carries the new roles
+        roles.clear();
+        assertFalse(cache.hasPermission(member, PermissionCache.OFFICER));
+
+        roles.add(PRACTICE_ROOM_ROLE);
+        assertTrue(cache.hasPermission(member, PermissionCache.PRACTICE_ROOM));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testEntriesExpireAfterTtl() {
+        Member member = member(1, 7, List.of(OFFICER_ROLE));
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+        assertEquals(1, cache.getMisses());
+        now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testGuildInvalidationResolvesAgain() {
+        Member member = member(1, 7, List.of(OFFICER_ROLE));
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+
+        cache.invalidateGuild(1);
+        assertTrue(cache.hasPermission(member, PermissionCache.OFFICER));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testSameMemberIsCachedPerGuild() {
+        Member officerInFirstGuild = member(1, 7, List.of(OFFICER_ROLE));
+        Member memberInSecondGuild = member(2, 7, List.of());
+
+        assertTrue(cache.hasPermission(officerInFirstGuild, PermissionCache.OFFICER));
+        assertFalse(cache.hasPermission(memberInSecondGuild, PermissionCache.OFFICER));
+        assertTrue(cache.hasPermission(officerInFirstGuild, PermissionCache.OFFICER));
+
+        // Invalidating one guild leaves the other's entries alone
+        cache.invalidateGuild(2);
+        assertTrue(cache.hasPermission(officerInFirstGuild, PermissionCache.OFFICER));
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Creates a stand-in member with the given roles; the role list is read on every resolution.
+     */
+    private static Member member(long guildId, long memberId, List<Long> roleIds) {
+        Guild guild = stub(Guild.class, "getIdLong", guildId);
+        return (Member) Proxy.newProxyInstance(Member.class.getClassLoader(), new Class<?>[]{Member.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "getIdLong" -> memberId;
+                    case "getGuild" -> guild;
+                    case "hasPermission" -> false;
+                    case "getRoles" -> roleIds.stream().map(id -> stub(Role.class, "getIdLong", id)).toList();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "Member " + memberId;
+                    default -> throw new UnsupportedOperationException("Not simulated: Member." + method.getName());
+                });
+    }
+
+    private static <T> T stub(Class<T> type, String getter, long value) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> type.getSimpleName() + " " + value;
+                    default -> {
+                        if (method.getName().equals(getter)) {
+                            yield value;
+                        }
+                        throw new UnsupportedOperationException("Not simulated: " + type.getSimpleName() + "." + method.getName());
+                    }
+                }));
+    }
+}
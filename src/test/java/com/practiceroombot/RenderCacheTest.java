@@ -0,0 +1,49 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RenderCacheTest {
+
+    @Test
+    public void testHitsOnlyForSameVersionAndUser() {
+        RenderCache cache = new RenderCache(1000);
+        byte[] image = new byte[10];
+        cache.put(3, "alice", image);
+
+        assertSame(image, cache.get(3, "alice"));
+        assertNull(cache.get(3, "bob"));
+        assertNull(cache.get(3, null));
+        assertNull(cache.get(4, "alice"));
+    }
+
+    @Test
+    public void testNewerVersionDropsOlderImages() {
+        RenderCache cache = new RenderCache(1000);
+        cache.put(1, "alice", new byte[10]);
+        cache.put(1, null, new byte[10]);
+        cache.put(2, "bob", new byte[10]);
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(1, "alice"));
+
+        // A slow render of an outdated version is not stored
+        cache.put(1, "alice", new byte[10]);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedImagesAreEvicted() {
+        RenderCache cache = new RenderCache(30);
+        cache.put(1, "alice", new byte[10]);
+        cache.put(1, "bob", new byte[10]);
+        cache.put(1, "carol", new byte[10]);
+        cache.get(1, "alice");
+        cache.put(1, "dave", new byte[10]);
+
+        assertNotNull(cache.get(1, "alice"));
+        assertNull(cache.get(1, "bob"));
+        assertEquals(30, cache.getTotalBytes());
+    }
+}
@@ -0,0 +1,126 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResponseCoalescerTest {
+
+    private final List<OutboundMessage> enqueued = Collections.synchronizedList(new ArrayList<>());
+
+    // Records the merged messages instead of sending them
+    private final OutboundDispatcher dispatcher = new OutboundDispatcher(message -> null) {
+        @Override
+        public void enqueue(OutboundMessage message) {
+            enqueued.add(message);
+        }
+    };
+
+    @Test
+    public void testResponsesWithinWindowAreMergedAcrossUsers() throws InterruptedException {
+        ResponseCoalescer coalescer = ResponseCoalescer.fromProperties(new Properties(), dispatcher);
+        MessageChannel channel = channel(1);
+
+        respond(coalescer, channel, "@alice reserved", "schedule.png");
+        respond(coalescer, channel, "@bob reserved", "schedule.png");
+        respond(coalescer, channel(2), "@carol reserved", null);
+
+        // Nothing is sent until the 250 ms window closes
+        assertTrue(enqueued.isEmpty());
+        assertTrue(awaitMessages(2));
+
+        OutboundMessage merged = enqueued.stream().filter(message -> message.getChannelId() == 1).findFirst().orElseThrow();
+        assertEquals("@alice reserved\n@bob reserved", merged.getContent());
+        assertEquals(OutboundPriority.CONFIRMATION, merged.getPriority());
+        assertEquals(List.of("schedule.png", "schedule-2.png"),
+                merged.getAttachments().stream().map(OutboundMessage.Attachment::fileName).toList());
+    }
+
+    @Test
+    public void testOversizedContentIsSplitAtLineBreaks() throws InterruptedException {
+        ResponseCoalescer coalescer = new ResponseCoalescer(0, dispatcher);
+        String line = "x".repeat(99);
+        CommandResponse response = new CommandResponse(channel(1), coalescer);
+        for (int i = 0; i < 45; i++) {
+            response.reply(line);
+        }
+        response.attach("schedule.png", new byte[1]);
+        response.flush();
+
+        assertEquals(3, enqueued.size());
+        int lines = 0;
+        for (OutboundMessage message : enqueued) {
+            assertTrue(message.getContent().length() <= ResponseCoalescer.MAX_CONTENT_LENGTH);
+            lines += message.getContent().split("\n").length;
+        }
+        assertEquals(45, lines);
+
+        // The attachment travels with the last part
+        assertTrue(enqueued.get(0).getAttachments().isEmpty());
+        assertEquals(1, enqueued.get(2).getAttachments().size());
+    }
+
+    @Test
+    public void testFullBatchIsSentBeforeWindowCloses() {
+        ResponseCoalescer coalescer = new ResponseCoalescer(TimeUnit.MINUTES.toMillis(1), dispatcher);
+        MessageChannel channel = channel(1);
+
+        respond(coalescer, channel, "a".repeat(1500), null);
+        respond(coalescer, channel, "b".repeat(1500), null);
+
+        assertEquals(1, enqueued.size());
+        assertEquals("a".repeat(1500), enqueued.get(0).getContent());
+    }
+
+    @Test
+    public void testBatchOpenedAfterOverflowKeepsItsOwnWindow() throws InterruptedException {
+        ResponseCoalescer coalescer = new ResponseCoalescer(300, dispatcher);
+        MessageChannel channel = channel(1);
+
+        respond(coalescer, channel, "a".repeat(1500), null);
+        Thread.sleep(200);
+        respond(coalescer, channel, "b".repeat(1500), null);
+        assertEquals(1, enqueued.size());
+
+        // The first batch's window has closed, but the second batch's has not
+        Thread.sleep(200);
+        assertEquals(1, enqueued.size());
+        assertTrue(awaitMessages(2));
+        assertEquals("b".repeat(1500), enqueued.get(1).getContent());
+    }
+
+    private static void respond(ResponseCoalescer coalescer, MessageChannel channel, String text, String fileName) {
+        CommandResponse response = new CommandResponse(channel, coalescer);
+        response.reply(text);
+        if (fileName != null) {
+            response.attach(fileName, new byte[1]);
+        }
+        response.flush();
+    }
+
+    private boolean awaitMessages(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (enqueued.size() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private static MessageChannel channel(long id) {
+        MessageChannel channel = mock(MessageChannel.class);
+        when(channel.getIdLong()).thenReturn(id);
+        return channel;
+    }
+}
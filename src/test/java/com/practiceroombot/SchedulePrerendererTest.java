@@ -0,0 +1,102 @@
+package com.practiceroombot;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SchedulePrerendererTest {
+
+    @After
+    public void tearDown() {
+        ScheduleImageSender.setRenderCache(new RenderCache(8L * 1024L * 1024L));
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testMostRecentlyActiveUsersAreCached() throws Exception {
+        RenderCache cache = new RenderCache(1024L * 1024L);
+        ScheduleImageSender.setRenderCache(cache);
+        SchedulePrerenderer prerenderer = new SchedulePrerenderer(2, 100);
+        prerenderer.userActive("alice");
+        prerenderer.userActive("bob");
+        prerenderer.userActive("carol"); // Pushes out alice
+
+        Schedule.resetCalendar();
+        Schedule.addReservation(1, "bob", 10, 2);
+        long version = Schedule.getVersion();
+        prerenderer.prerender();
+
+        byte[] prerendered = cache.get(version, "bob");
+        assertNotNull(prerendered);
+        assertNotNull(cache.get(version, "carol"));
+        assertNull(cache.get(version, "alice"));
+
+        // Render bob's image again without a cache to compare against
+        ScheduleImageSender.setRenderCache(new RenderCache(0));
+        assertArrayEquals(ScheduleImageSender.renderSchedule("bob"), prerendered);
+    }
+
+    @Test
+    public void testChangeDuringRunSupersedesRemainingImages() throws Exception {
+        List<String> renders = new ArrayList<>();
+        SchedulePrerenderer prerenderer = new SchedulePrerenderer(3, 100, user -> {
+            if (renders.isEmpty()) {
+                // The schedule changes while the first image is being rendered
+                Schedule.addReservation(1, "alice", 10, 1);
+            }
+            renders.add(user);
+        });
+        prerenderer.userActive("alice");
+        prerenderer.userActive("bob");
+        prerenderer.userActive("carol");
+
+        Schedule.resetCalendar();
+        prerenderer.prerender();
+
+        // carol's image of the old version was rendered; bob and alice were skipped, then everyone rendered again
+        assertEquals(2, prerenderer.getSuperseded());
+        assertEquals(List.of("carol", "carol", "bob", "alice"), renders);
+        assertEquals(4, prerenderer.getRendered());
+
+        // Nothing to do until the schedule changes again
+        prerenderer.prerender();
+        assertEquals(4, renders.size());
+    }
+
+    @Test
+    public void testRendersStayWithinCpuShare() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isCurrentThreadCpuTimeSupported()) {
+            return;
+        }
+
+        long[] busyNanos = new long[1];
+        SchedulePrerenderer prerenderer = new SchedulePrerenderer(3, 50, user -> {
+            // Spin for 20 ms of CPU time, standing in for an expensive render
+            long start = threads.getCurrentThreadCpuTime();
+            while (threads.getCurrentThreadCpuTime() - start < TimeUnit.MILLISECONDS.toNanos(20)) {
+                Thread.onSpinWait();
+            }
+            busyNanos[0] += threads.getCurrentThreadCpuTime() - start;
+        });
+        prerenderer.userActive("alice");
+        prerenderer.userActive("bob");
+        prerenderer.userActive("carol");
+
+        Schedule.resetCalendar();
+        long startNanos = System.nanoTime();
+        prerenderer.prerender();
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        // At half a CPU, every render is followed by a sleep at least as long as it was busy
+        assertEquals(3, prerenderer.getRendered());
+        assertTrue("Elapsed " + elapsedNanos + " ns for " + busyNanos[0] + " ns of CPU", elapsedNanos >= 2 * busyNanos[0] * 9 / 10);
+    }
+}
@@ -0,0 +1,107 @@
+package com.practiceroombot;
+
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SchedulePublisherTest {
+
+    // Long enough that the publisher's own timed checks never run during a test
+    private static final long QUIET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MAX_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(3);
+
+    private final List<OutboundMessage> enqueued = Collections.synchronizedList(new ArrayList<>());
+
+    // Records the published images instead of sending them
+    private final OutboundDispatcher dispatcher = new OutboundDispatcher(message -> null) {
+        @Override
+        public void enqueue(OutboundMessage message) {
+            enqueued.add(message);
+        }
+    };
+
+    private final AtomicLong now = new AtomicLong();
+    private final SchedulePublisher publisher = new SchedulePublisher(QUIET_MILLIS, MAX_DELAY_MILLIS, dispatcher, null, now::get);
+    private final MessageChannel channel = channel(1);
+
+    @After
+    public void tearDown() {
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testLoneChangeIsLeftToTheReply() {
+        assertFalse(publisher.markDirty(channel, "alice"));
+
+        now.addAndGet(QUIET_MILLIS);
+        publisher.check(1);
+        assertTrue(enqueued.isEmpty());
+
+        // The burst has ended, so the next change is again attached to its reply
+        assertFalse(publisher.markDirty(channel, "alice"));
+    }
+
+    @Test
+    public void testBurstIsPublishedOnceQuiet() {
+        assertFalse(publisher.markDirty(channel, "alice"));
+        now.addAndGet(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(publisher.markDirty(channel, "alice"));
+        now.addAndGet(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(publisher.markDirty(channel, "bob"));
+
+        // Still within the quiet period of the last change
+        now.addAndGet(QUIET_MILLIS - 1);
+        publisher.check(1);
+        assertTrue(enqueued.isEmpty());
+
+        now.addAndGet(1);
+        publisher.check(1);
+        publisher.check(1);
+        assertEquals(1, enqueued.size());
+        OutboundMessage.Attachment image = enqueued.get(0).getAttachments().get(0);
+        assertEquals(SchedulePublisher.NEUTRAL_VIEW, image.scheduleView());
+        assertEquals(OutboundPriority.IMAGE, enqueued.get(0).getPriority());
+    }
+
+    @Test
+    public void testLongBurstIsPublishedAtMaximumDelay() {
+        long step = QUIET_MILLIS / 2;
+        assertFalse(publisher.markDirty(channel, "alice"));
+
+        // A change every half quiet period never lets the channel go quiet
+        int published = 0;
+        for (long elapsed = step; elapsed <= 3 * MAX_DELAY_MILLIS; elapsed += step) {
+            now.set(elapsed);
+            assertTrue(publisher.markDirty(channel, "alice"));
+            publisher.check(1);
+            if (enqueued.size() > published) {
+                // The oldest unpublished change, made right after the last image, waited the maximum delay
+                assertEquals(1, enqueued.size() - published);
+                published = enqueued.size();
+            }
+        }
+        assertEquals(2, published);
+        assertEquals("alice", enqueued.get(0).getAttachments().get(0).scheduleView());
+
+        // The changes since the last image are published once the channel goes quiet
+        now.addAndGet(QUIET_MILLIS);
+        publisher.check(1);
+        assertEquals(3, enqueued.size());
+    }
+
+    private static MessageChannel channel(long id) {
+        MessageChannel channel = mock(MessageChannel.class);
+        when(channel.getIdLong()).thenReturn(id);
+        return channel;
+    }
+}
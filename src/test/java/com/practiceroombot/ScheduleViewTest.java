@@ -0,0 +1,41 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScheduleViewTest {
+
+    @Test
+    public void testOptionsCombine() {
+        ScheduleView view = ScheduleView.FULL.withOption("6pm-11pm").withOption("r2").withOption("1.5x");
+
+        assertEquals(-1, view.getDay());
+        assertEquals(36, view.getFirstSlot());
+        assertEquals(46, view.getEndSlot());
+        assertEquals(2, view.getRoom());
+        assertEquals(1.5, view.getScale(), 0.0);
+        assertFalse(view.isFull());
+        assertTrue(ScheduleView.FULL.isFull());
+    }
+
+    @Test
+    public void testWindowUntilMidnight() {
+        assertEquals(Schedule.SLOTS_PER_DAY, ScheduleView.FULL.withOption("10pm-12am").getEndSlot());
+    }
+
+    @Test
+    public void testUnknownOptionIsRejected() {
+        assertNull(ScheduleView.FULL.withOption("banana"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testScaleOutOfRange() {
+        ScheduleView.FULL.withOption("3x");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBackwardsWindow() {
+        ScheduleView.FULL.withOption("11pm-6pm");
+    }
+}
@@ -0,0 +1,166 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+public class ScheduleVisualizerTest {
+
+    // Center of the block showing a slot, following the visualizer's layout
+    private static int pixel(BufferedImage image, int index) {
+        int day = (index + 39) / 48;
+        int hour = (index + 39) % 48;
+        return image.getRGB(120 + hour * 40 + 19, (day + 1) * 40 + 19) & 0xFFFFFF;
+    }
+
+    @Test
+    public void testOverlayHighlightsOnlyTheRequestingUser() {
+        Schedule.resetCalendar();
+        Schedule.addReservation(1, "alice", 10, 2);
+        Schedule.addReservation(2, "bob", 20, 2);
+
+        BufferedImage neutral = ScheduleVisualizer.generateScheduleImage(null);
+        BufferedImage alice = ScheduleVisualizer.generateScheduleImage("alice");
+
+        assertEquals(0xFF0000, pixel(neutral, 10)); // Room 1 reserved
+        assertEquals(0x800080, pixel(alice, 10));   // Alice's own reservation in room 1
+        assertEquals(0xFFFF00, pixel(alice, 20));   // Bob's reservation stays neutral
+
+        // Every pixel outside Alice's blocks matches the neutral image
+        int differing = 0;
+        for (int y = 0; y < neutral.getHeight(); y++) {
+            for (int x = 0; x < neutral.getWidth(); x++) {
+                if (neutral.getRGB(x, y) != alice.getRGB(x, y)) {
+                    differing++;
+                }
+            }
+        }
+        assertEquals(4 * 37 * 37, differing); // Four slots, inside their black outlines
+    }
+
+    @Test
+    public void testBaseLayerFollowsScheduleChanges() {
+        Schedule.resetCalendar();
+        assertEquals(0xFFFFFF, pixel(ScheduleVisualizer.generateScheduleImage("alice"), 30));
+
+        Schedule.addReservation(2, "carol", 30, 1);
+        assertEquals(0xFFFF00, pixel(ScheduleVisualizer.generateScheduleImage("alice"), 30));
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testPooledImageIsFullyOverwritten() {
+        Schedule.resetCalendar();
+        Schedule.addReservation(1, "alice", 10, 2);
+        BufferedImage expected = ScheduleVisualizer.generateScheduleImage("alice");
+
+        BufferedImage pooled = ScheduleVisualizer.acquireImage();
+        ScheduleVisualizer.renderInto(pooled, "bob");
+        ScheduleVisualizer.renderInto(pooled, "alice");
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), pooled.getRGB(x, y));
+            }
+        }
+        ScheduleVisualizer.releaseImage(pooled);
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testIncrementalUpdateMatchesFullRedraw() {
+        Schedule.resetCalendar();
+        ScheduleVisualizer.generateScheduleImage(null);
+
+        // Each change repaints only its own slots
+        Schedule.addReservation(1, "alice", 10, 2);
+        Schedule.addReservation(2, "bob", 40, 1);
+        assertEquals(0xFF0000, pixel(ScheduleVisualizer.generateScheduleImage(null), 10));
+        Schedule.cancelReservationInRoom(true, "alice", 10);
+        Schedule.addRaid(100, 1);
+        BufferedImage incremental = ScheduleVisualizer.generateScheduleImage(null);
+
+        Schedule.resetCalendar();
+        Schedule.addReservation(2, "bob", 40, 1);
+        Schedule.addRaid(100, 1);
+        BufferedImage full = ScheduleVisualizer.generateScheduleImage(null);
+
+        assertEquals(0xFFFFFF, pixel(incremental, 10));
+        for (int y = 0; y < full.getHeight(); y++) {
+            for (int x = 0; x < full.getWidth(); x++) {
+                assertEquals(full.getRGB(x, y), incremental.getRGB(x, y));
+            }
+        }
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testChangedSlotsAreReported() {
+        Schedule.resetCalendar();
+        long version = Schedule.getVersion();
+        Schedule.addReservation(1, "alice", 10, 1);
+
+        boolean[] changed = new boolean[Schedule.SLOTS_PER_WEEK];
+        synchronized (Schedule.class) {
+            assertTrue(Schedule.markChangedSlots(version, changed));
+        }
+        assertFalse(changed[9]);
+        assertTrue(changed[10]);
+        assertTrue(changed[11]);
+        assertFalse(changed[12]);
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testFullViewMatchesScheduleImage() {
+        Schedule.resetCalendar();
+        Schedule.addReservation(1, "alice", 10, 2);
+        Schedule.addReservation(2, "bob", 20, 2);
+        BufferedImage expected = ScheduleVisualizer.generateScheduleImage("alice");
+        BufferedImage view = ScheduleVisualizer.renderView(ScheduleView.FULL, "alice");
+
+        assertEquals(expected.getWidth(), view.getWidth());
+        assertEquals(expected.getHeight(), view.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), view.getRGB(x, y));
+            }
+        }
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testRaidShowsOnlyWhereShownRoomsAreFree() {
+        Schedule.resetCalendar();
+        Schedule.addRaid(100, 2);
+        Schedule.addReservation(1, "alice", 100, 0.5);
+        Schedule.addReservation(2, "bob", 101, 0.5);
+
+        // Room 1 reserved during the raid
+        assertEquals(SlotState.ROOM_1, ScheduleVisualizer.determineState(100, null));
+        assertEquals(SlotState.ROOM_1, ScheduleVisualizer.determineViewState(100, null, 1));
+        assertEquals(SlotState.RAID, ScheduleVisualizer.determineViewState(100, null, 2));
+
+        // Room 2 reserved during the raid
+        assertEquals(SlotState.ROOM_2, ScheduleVisualizer.determineState(101, null));
+        assertEquals(SlotState.RAID, ScheduleVisualizer.determineViewState(101, null, 1));
+        assertEquals(SlotState.ROOM_2, ScheduleVisualizer.determineViewState(101, null, 2));
+
+        // Both rooms free
+        for (int room = 0; room <= 2; room++) {
+            assertEquals(SlotState.RAID, ScheduleVisualizer.determineViewState(102, null, room));
+        }
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testCroppedViewIsSmaller() {
+        ScheduleView view = ScheduleView.FULL.withOption("thu").withOption("6pm-11pm").withOption("0.5x");
+        BufferedImage image = ScheduleVisualizer.renderView(view, "alice");
+        BufferedImage full = ScheduleVisualizer.renderView(ScheduleView.FULL, "alice");
+
+        assertTrue(image.getWidth() < full.getWidth() / 4);
+        assertTrue(image.getHeight() < full.getHeight() / 4);
+    }
+}
@@ -0,0 +1,97 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class SlotClockTest {
+
+    private static int indexAt(ZonedDateTime time) {
+        return new SlotClock(Clock.fixed(time.toInstant(), ZoneOffset.UTC)).currentIndex();
+    }
+
+    /**
+     * Reproduces the original string-based calculation for the given instant.
+     */
+    private static int legacyIndexAt(Instant instant) {
+        LocalDateTime now = LocalDateTime.ofInstant(instant, SlotClock.ZONE);
+        String day = now.format(DateTimeFormatter.ofPattern("EEEE", Locale.ENGLISH)).toLowerCase();
+        String time = now.withMinute(now.getMinute() < 30 ? 0 : 30)
+                .format(DateTimeFormatter.ofPattern("h:mma", Locale.ENGLISH)).toLowerCase();
+        return TimeIntegerizer.integerizeTime(time, day);
+    }
+
+    @Test
+    public void testWeekStartsMondayEvening() {
+        assertEquals(0, indexAt(ZonedDateTime.of(2024, 1, 8, 19, 30, 0, 0, SlotClock.ZONE)));
+        assertEquals(0, indexAt(ZonedDateTime.of(2024, 1, 8, 19, 59, 59, 0, SlotClock.ZONE)));
+        assertEquals(1, indexAt(ZonedDateTime.of(2024, 1, 8, 20, 0, 0, 0, SlotClock.ZONE)));
+    }
+
+    @Test
+    public void testWeekEndsBeforeNextMondayEvening() {
+        assertEquals(335, indexAt(ZonedDateTime.of(2024, 1, 15, 19, 29, 59, 0, SlotClock.ZONE)));
+        assertEquals(330, indexAt(ZonedDateTime.of(2024, 1, 15, 16, 30, 0, 0, SlotClock.ZONE)));
+    }
+
+    @Test
+    public void testMatchesWallClockAcrossDaylightSavingTransitions() {
+        // Weeks containing the spring-forward and fall-back transitions of 2024
+        Instant[] weekStarts = {
+                ZonedDateTime.of(2024, 3, 4, 19, 30, 0, 0, SlotClock.ZONE).toInstant(),
+                ZonedDateTime.of(2024, 10, 28, 19, 30, 0, 0, SlotClock.ZONE).toInstant()
+        };
+        for (Instant weekStart : weekStarts) {
+            // Step through two weeks in 10 minute increments
+            for (long minute = 0; minute < 2 * 7 * 24 * 60; minute += 10) {
+                Instant instant = weekStart.plusSeconds(minute * 60);
+                int actual = new SlotClock(Clock.fixed(instant, ZoneOffset.UTC)).currentIndex();
+                assertEquals("Mismatch at " + instant, legacyIndexAt(instant), actual);
+            }
+        }
+    }
+
+    @Test
+    public void testAdvancesAcrossWeekRollover() {
+        MutableClock clock = new MutableClock(ZonedDateTime.of(2024, 1, 15, 19, 0, 0, 0, SlotClock.ZONE).toInstant());
+        SlotClock slotClock = new SlotClock(clock);
+        assertEquals(335, slotClock.currentIndex());
+
+        clock.instant = clock.instant.plusSeconds(30 * 60);
+        assertEquals(0, slotClock.currentIndex());
+    }
+
+    /**
+     * Clock whose instant can be moved by the test.
+     */
+    private static class MutableClock extends Clock {
+        Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public java.time.ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
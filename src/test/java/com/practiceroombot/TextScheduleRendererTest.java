@@ -0,0 +1,38 @@
+package com.practiceroombot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TextScheduleRendererTest {
+
+    @Test
+    public void testDayViewUsesImageColourSemantics() {
+        Schedule.resetCalendar();
+        // Thursday 8:00 PM to 9:00 PM in room 1 for alice, 9:00 PM to 9:30 PM in room 2 for bob
+        Schedule.addReservation(1, "alice", TimeIntegerizer.integerizeIndices(3, 40), 1);
+        Schedule.addReservation(2, "bob", TimeIntegerizer.integerizeIndices(3, 42), 0.5);
+
+        String[] lines = TextScheduleRenderer.renderDay(3, "alice").split("\n");
+        assertEquals("Thu", lines[1]);
+        // Last line covers 6 PM to midnight, two slots per group
+        assertEquals(" 6p ⬜⬜ ⬜⬜ 🟪🟪 🟨⬜ ⬜⬜ ⬜⬜", lines[5]);
+
+        String neutral = TextScheduleRenderer.renderDay(3, null);
+        assertTrue(neutral.contains("🟥🟥 🟨⬜"));
+        assertFalse(neutral.contains(SlotState.OWN_ROOM_1.getSymbol()));
+        Schedule.resetCalendar();
+    }
+
+    @Test
+    public void testWeekViewFitsInOneMessage() {
+        Schedule.resetCalendar();
+        Schedule.addRecordingSession(TimeIntegerizer.integerizeIndices(5, 20), 2);
+
+        String week = TextScheduleRenderer.renderWeek("alice");
+        assertEquals(1 + 1 + 7 + 1, week.split("\n").length); // Fence, header, days, closing fence and legend
+        assertTrue(week.contains(SlotState.RECORDING.getSymbol()));
+        assertTrue(week.length() < 1900);
+        Schedule.resetCalendar();
+    }
+}